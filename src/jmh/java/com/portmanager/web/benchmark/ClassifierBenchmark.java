@@ -0,0 +1,64 @@
+package com.portmanager.web.benchmark;
+
+import com.portmanager.web.scanner.ClassificationRules;
+import com.portmanager.web.scanner.PortTypeIdentifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程类型/端口类型识别: 编译后的单遍匹配 vs 原逐个 contains 实现
+ * short: 常见的短命令行; classpath: 约 30KB classpath 的 java 命令行 (IDE 启动的应用)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassifierBenchmark {
+
+    @Param({"short", "classpath"})
+    public String commandLineKind;
+
+    private PortTypeIdentifier portTypeIdentifier;
+
+    private String processName;
+
+    private String commandLine;
+
+    @Setup
+    public void setup() {
+        portTypeIdentifier = new PortTypeIdentifier(new ClassificationRules());
+        if ("classpath".equals(commandLineKind)) {
+            processName = "java";
+            commandLine = SyntheticPorts.longJavaCommandLine(30 * 1024);
+        } else {
+            processName = "node";
+            commandLine = "node /Users/dev/web/node_modules/.bin/vite --port 5173";
+        }
+    }
+
+    @Benchmark
+    public PortTypeIdentifier.Classification classify() {
+        return portTypeIdentifier.classify(8080, processName, commandLine);
+    }
+
+    @Benchmark
+    public String[] legacyContains() {
+        return new String[]{
+                LegacyPortTypeIdentifier.identifyProcessType(processName, commandLine),
+                LegacyPortTypeIdentifier.identifyPortType(8080, processName, commandLine)
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.portmanager.web.benchmark;
+
+import com.portmanager.web.model.PortInfo;
+import com.portmanager.web.scanner.ClassificationCache;
+import com.portmanager.web.scanner.ClassificationRules;
+import com.portmanager.web.scanner.DevProcessMatcher;
+import com.portmanager.web.scanner.LinuxPortScanner;
+import com.portmanager.web.scanner.MacPortScanner;
+import com.portmanager.web.scanner.PortTypeIdentifier;
+import com.portmanager.web.scanner.ProcessMetadataCache;
+import com.portmanager.web.scanner.ScanMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Linux全量扫描对比: /proc/net 直接读取 vs fork lsof
+ * 仅在Linux上有意义，两种方式扫描的是同一台主机的实际socket表
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinuxScannerBenchmark {
+
+    private LinuxPortScanner linuxPortScanner;
+
+    private MacPortScanner macPortScanner;
+
+    @Setup
+    public void setup() {
+        ClassificationCache classificationCache = new ClassificationCache();
+        ReflectionTestUtils.setField(classificationCache, "portTypeIdentifier",
+                new PortTypeIdentifier(new ClassificationRules()));
+        ReflectionTestUtils.setField(classificationCache, "maxSize", 4096);
+        DevProcessMatcher devProcessMatcher = new DevProcessMatcher();
+        devProcessMatcher.reload("idea,java,tace,claude,springboot,node,python,maven,gradle");
+        ReflectionTestUtils.setField(classificationCache, "devProcessMatcher", devProcessMatcher);
+        classificationCache.init();
+        ScanMetrics scanMetrics = new ScanMetrics(new SimpleMeterRegistry());
+        linuxPortScanner = new LinuxPortScanner();
+        ReflectionTestUtils.setField(linuxPortScanner, "processMetadataCache", processMetadataCache(scanMetrics));
+        ReflectionTestUtils.setField(linuxPortScanner, "classificationCache", classificationCache);
+        ReflectionTestUtils.setField(linuxPortScanner, "scanMetrics", scanMetrics);
+        macPortScanner = new MacPortScanner();
+        ReflectionTestUtils.setField(macPortScanner, "processMetadataCache", processMetadataCache(scanMetrics));
+        ReflectionTestUtils.setField(macPortScanner, "classificationCache", classificationCache);
+        ReflectionTestUtils.setField(macPortScanner, "scanMetrics", scanMetrics);
+    }
+
+    private static ProcessMetadataCache processMetadataCache(ScanMetrics scanMetrics) {
+        ProcessMetadataCache processMetadataCache = new ProcessMetadataCache();
+        ReflectionTestUtils.setField(processMetadataCache, "scanMetrics", scanMetrics);
+        return processMetadataCache;
+    }
+
+    @Benchmark
+    public List<PortInfo> procNetScan() {
+        return linuxPortScanner.scanPorts();
+    }
+
+    @Benchmark
+    public List<PortInfo> lsofScan() {
+        return macPortScanner.scanPorts();
+    }
+}
@@ -0,0 +1,162 @@
+package com.portmanager.web.benchmark;
+
+import com.portmanager.web.model.PortInfo;
+import com.portmanager.web.scanner.LsofOutputParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * lsof输出解析: 流式下标切分 vs 原 split + 正则实现
+ * 输入为 10k 行 lsof 输出，每次操作为一行；配合 -prof gc 的 gc.alloc.rate.norm 即为每行分配字节数。
+ * recordedCapture 解析一份典型 Mac 开发机格式的输出样本 (lsof-listen.txt)，每次操作为整份输出。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LsofParserBenchmark {
+
+    static final int LINES = 10_000;
+
+    private static final Pattern PORT_PATTERN = Pattern.compile(":(\\d+)");
+
+    private byte[] capture;
+
+    private byte[] recorded;
+
+    @Setup
+    public void setup() throws IOException {
+        capture = generateCapture(LINES);
+        recorded = readResource("/lsof-listen.txt");
+    }
+
+    static byte[] readResource(String name) throws IOException {
+        try (InputStream in = LsofParserBenchmark.class.getResourceAsStream(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * 生成 lsof -i -P -n | grep LISTEN 格式的输出，同一进程的socket相邻
+     */
+    static byte[] generateCapture(int lines) {
+        String[] commands = {"java", "node", "python3", "nginx", "mysqld", "redis-ser", "Google\\x20Chrome"};
+        String[] users = {"root", "dev", "_mysql", "www"};
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(lines * 90);
+        int pid = 1000;
+        for (int i = 0; i < lines; i++) {
+            if (i % 4 == 0) {
+                pid += 1 + random.nextInt(50);
+            }
+            boolean ipv6 = random.nextBoolean();
+            int port = 1024 + random.nextInt(60000);
+            sb.append(commands[pid % commands.length]).append("    ")
+                    .append(pid).append(' ')
+                    .append(users[pid % users.length]).append("   ")
+                    .append(10 + i % 200).append("u  ")
+                    .append(ipv6 ? "IPv6" : "IPv4").append(" 0x")
+                    .append(Long.toHexString(0x7f0000000000L + random.nextInt()))
+                    .append("      0t0  TCP ")
+                    .append(ipv6 ? "[::1]" : "127.0.0.1").append(':').append(port)
+                    .append(" (LISTEN)\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public List<PortInfo> streamingTokenizer() throws IOException {
+        List<PortInfo> out = new ArrayList<>(LINES);
+        new LsofOutputParser().parse(new ByteArrayInputStream(capture), out);
+        return out;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<PortInfo> recordedCapture() throws IOException {
+        List<PortInfo> out = new ArrayList<>();
+        new LsofOutputParser().parse(new ByteArrayInputStream(recorded), out);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public List<PortInfo> legacySplitRegex() throws IOException {
+        List<PortInfo> out = new ArrayList<>(LINES);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(capture)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                PortInfo portInfo = legacyParseLine(line);
+                if (portInfo != null) {
+                    out.add(portInfo);
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 原 MacPortScanner.parseLsofLine (不含命令行查询)
+     */
+    private static PortInfo legacyParseLine(String line) {
+        String[] parts = line.trim().split("\\s+");
+        if (parts.length < 9) {
+            return null;
+        }
+
+        String processName = parts[0];
+        Long pid = Long.parseLong(parts[1]);
+        String user = parts[2];
+        String protocol = parts[7];
+        String address = parts[8];
+
+        Matcher matcher = PORT_PATTERN.matcher(address);
+        if (!matcher.find()) {
+            return null;
+        }
+        int port = Integer.parseInt(matcher.group(1));
+
+        return PortInfo.builder()
+                .port(port)
+                .protocol(protocol)
+                .status("LISTENING")
+                .pid(pid)
+                .processName(processName)
+                .user(user)
+                .localAddress(address)
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.portmanager.web.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.portmanager.web.model.PortInfo;
+import com.portmanager.web.model.PortSnapshot;
+import com.portmanager.web.service.PortJournal;
+import com.portmanager.web.service.PortScanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 快照查询热点: 搜索 (n-gram 索引 vs 原线性扫描)、统计、快照构建、/api/ports 的 JSON 序列化
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotQueryBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int sockets;
+
+    private List<PortInfo> portList;
+
+    private PortScanService portScanService;
+
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setup() {
+        portList = SyntheticPorts.generate(sockets);
+        portScanService = new PortScanService();
+        // 经由发布流程写入快照，同时建立搜索索引
+        ApplicationEventPublisher noopPublisher = event -> { };
+        ReflectionTestUtils.setField(portScanService, "eventPublisher", noopPublisher);
+        // 未调用 restore() 的日志不写入磁盘
+        ReflectionTestUtils.setField(portScanService, "portJournal", new PortJournal());
+        ReflectionTestUtils.invokeMethod(portScanService, "publish", System.currentTimeMillis(), portList);
+
+        objectMapper = new ObjectMapper();
+    }
+
+    @Benchmark
+    public List<PortInfo> searchPorts(SearchKeyword search) {
+        return portScanService.searchPorts(search.keyword);
+    }
+
+    /**
+     * 原实现: 逐个端口转字符串、转小写后 contains
+     */
+    @Benchmark
+    public List<PortInfo> linearSearch(SearchKeyword search) {
+        String keyword = search.keyword.toLowerCase().trim();
+        List<PortInfo> result = new ArrayList<>();
+        for (PortInfo portInfo : portScanService.getAllPorts()) {
+            if (String.valueOf(portInfo.getPort()).contains(keyword)
+                    || (portInfo.getPid() != null && String.valueOf(portInfo.getPid()).contains(keyword))
+                    || (portInfo.getProcessName() != null && portInfo.getProcessName().toLowerCase().contains(keyword))
+                    || (portInfo.getCommandLine() != null && portInfo.getCommandLine().toLowerCase().contains(keyword))) {
+                result.add(portInfo);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Map<String, Integer> getStatistics() {
+        return portScanService.getStatistics();
+    }
+
+    @Benchmark
+    public PortSnapshot buildSnapshot() {
+        return new PortSnapshot(2, System.currentTimeMillis(), portList);
+    }
+
+    /**
+     * 与 PortController.getAllPorts 相同的响应结构
+     */
+    @Benchmark
+    public byte[] serializeAllPorts() throws Exception {
+        PortSnapshot snapshot = portScanService.getSnapshot();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", snapshot.getPorts());
+        response.put("count", snapshot.size());
+        response.put("version", snapshot.getVersion());
+        response.put("lastScanTime", snapshot.getScanTime());
+        response.put("osType", "Mac");
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    /**
+     * 搜索关键字: 端口号片段 / 进程名 / 只出现在命令行中 / 无匹配
+     * 单独的 State，避免其他基准测试按关键字重复运行
+     */
+    @State(Scope.Benchmark)
+    public static class SearchKeyword {
+        @Param({"808", "java", "uvicorn", "no-such-keyword"})
+        public String keyword;
+    }
+}
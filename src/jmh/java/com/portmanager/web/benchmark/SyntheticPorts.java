@@ -0,0 +1,69 @@
+package com.portmanager.web.benchmark;
+
+import com.portmanager.web.model.PortInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试用的合成端口数据
+ */
+final class SyntheticPorts {
+
+    private static final String[][] PROCESSES = {
+            {"java", "JAVA", "BACKEND", "/usr/bin/java -Xmx2g -jar /opt/app/order-service.jar --spring.profiles.active=dev"},
+            {"node", "NODE", "FRONTEND", "node /Users/dev/web/node_modules/.bin/vite --port 5173"},
+            {"python3", "PYTHON", "BACKEND", "/usr/local/bin/python3 -m uvicorn main:app --reload"},
+            {"nginx", "WEB_SERVER", "BACKEND", "nginx: worker process"},
+            {"mysqld", "DATABASE", "DATABASE", "/usr/local/opt/mysql/bin/mysqld --basedir=/usr/local/opt/mysql"},
+            {"redis-server", "DATABASE", "DATABASE", "/usr/local/opt/redis/bin/redis-server 127.0.0.1:6379"},
+            {"rapportd", "OTHER", "OTHER", "/usr/libexec/rapportd"},
+    };
+
+    private SyntheticPorts() {
+    }
+
+    /**
+     * 生成指定数量的监听socket，PID/协议/地址各不相同
+     */
+    static List<PortInfo> generate(int count) {
+        Random random = new Random(42);
+        List<PortInfo> ports = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String[] process = PROCESSES[random.nextInt(PROCESSES.length)];
+            int port = 1 + (i % 65535);
+            boolean udp = i / 65535 % 2 == 1;
+            ports.add(PortInfo.builder()
+                    .port(port)
+                    .protocol(udp ? "UDP" : "TCP")
+                    .status("LISTENING")
+                    .pid(1000L + random.nextInt(5000))
+                    .processName(process[0])
+                    .commandLine(process[3])
+                    .isDevelopmentProcess(random.nextBoolean())
+                    .user("dev")
+                    .localAddress((random.nextBoolean() ? "*" : "127.0.0.1") + ":" + port)
+                    .processType(process[1])
+                    .portType(process[2])
+                    .build());
+        }
+        return ports;
+    }
+
+    /**
+     * 一个包含约 size 字节 classpath 的 java 命令行
+     */
+    static String longJavaCommandLine(int size) {
+        StringBuilder sb = new StringBuilder(size + 128);
+        sb.append("/Library/Java/JavaVirtualMachines/jdk-17.jdk/Contents/Home/bin/java -Dfile.encoding=UTF-8 -classpath ");
+        int i = 0;
+        while (sb.length() < size) {
+            sb.append("/Users/dev/.m2/repository/org/example/lib-").append(i).append("/1.0.").append(i)
+                    .append("/lib-").append(i).append("-1.0.").append(i).append(".jar:");
+            i++;
+        }
+        sb.append(" com.example.OrderServiceApplication");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.portmanager.web.config;
+
+import com.portmanager.web.scanner.ClassificationCache;
+import com.portmanager.web.scanner.ProcessMetadataCache;
+import com.portmanager.web.service.PortScanService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 监控指标配置
+ * 缓存命中率和快照大小以函数形式注册，抓取时读取当前值，不影响扫描路径。
+ * 扫描阶段耗时等指标见 {@link com.portmanager.web.scanner.ScanMetrics}，
+ * 接口耗时由 Actuator 记录为 http.server.requests。
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ClassificationCache classificationCache;
+
+    @Autowired
+    private ProcessMetadataCache processMetadataCache;
+
+    @Autowired
+    private PortScanService portScanService;
+
+    @PostConstruct
+    public void bindMetrics() {
+        bindCache(meterRegistry, "classification", classificationCache,
+                ClassificationCache::getHits, ClassificationCache::getMisses, ClassificationCache::size);
+        FunctionCounter.builder("portmanager.cache.evictions", classificationCache, ClassificationCache::getEvictions)
+                .tag("cache", "classification")
+                .register(meterRegistry);
+        bindCache(meterRegistry, "process", processMetadataCache,
+                ProcessMetadataCache::getHits, ProcessMetadataCache::getMisses, ProcessMetadataCache::size);
+
+        Gauge.builder("portmanager.snapshot.sockets", portScanService, s -> s.getSnapshot().size())
+                .description("Listening sockets in the current snapshot")
+                .register(meterRegistry);
+        Gauge.builder("portmanager.snapshot.ports", portScanService,
+                s -> s.getStatistics().getOrDefault("distinctPorts", 0))
+                .description("Distinct ports in the current snapshot")
+                .register(meterRegistry);
+        Gauge.builder("portmanager.snapshot.version", portScanService, s -> s.getSnapshot().getVersion())
+                .register(meterRegistry);
+    }
+
+    /**
+     * 缓存的命中/未命中计数、命中率和条目数
+     */
+    private static <T> void bindCache(MeterRegistry registry, String cache, T target,
+                                      ToDoubleFunction<T> hits, ToDoubleFunction<T> misses,
+                                      ToDoubleFunction<T> size) {
+        FunctionCounter.builder("portmanager.cache.requests", target, hits)
+                .tags("cache", cache, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("portmanager.cache.requests", target, misses)
+                .tags("cache", cache, "result", "miss")
+                .register(registry);
+        Gauge.builder("portmanager.cache.hit.ratio", target, t -> {
+            double hit = hits.applyAsDouble(t);
+            double total = hit + misses.applyAsDouble(t);
+            return total > 0 ? hit / total : 0;
+        }).tag("cache", cache).register(registry);
+        Gauge.builder("portmanager.cache.size", target, size)
+                .tag("cache", cache)
+                .register(registry);
+    }
+}
@@ -0,0 +1,34 @@
+package com.portmanager.web.config;
+
+import com.portmanager.web.model.PortSnapshot;
+import com.portmanager.web.service.PortScanService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * 快照状态 (/actuator/health 中的 snapshot)
+ * 首次全量扫描完成前为 WARMING，此时返回的是从日志恢复的快照 (或空列表)；
+ * 已加入 readiness 分组，WARMING 映射为 503。
+ */
+@Component
+public class SnapshotHealthIndicator implements HealthIndicator {
+
+    public static final Status WARMING = new Status("WARMING", "Initial port scan in progress");
+
+    @Autowired
+    private PortScanService portScanService;
+
+    @Override
+    public Health health() {
+        PortSnapshot snapshot = portScanService.getSnapshot();
+        Health.Builder builder = portScanService.isWarming() ? Health.status(WARMING) : Health.up();
+        return builder
+                .withDetail("version", snapshot.getVersion())
+                .withDetail("lastScanTime", snapshot.getScanTime())
+                .withDetail("sockets", snapshot.size())
+                .build();
+    }
+}
@@ -1,15 +1,29 @@
 package com.portmanager.web.config;
 
+import com.portmanager.web.service.ScanScheduler;
+import com.portmanager.web.service.StartupMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 /**
  * Web配置类
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    @Autowired
+    private ScanScheduler scanScheduler;
+
+    @Autowired
+    private StartupMetrics startupMetrics;
+
     /**
      * 配置CORS跨域
      */
@@ -21,4 +35,19 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*")
                 .maxAge(3600);
     }
-}
\ No newline at end of file
+
+    /**
+     * API访问视为扫描需求，用于扫描调度退避；同时记录启动后的第一个请求
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                scanScheduler.recordDemand();
+                startupMetrics.requestReceived();
+                return true;
+            }
+        }).addPathPatterns("/api/**");
+    }
+}
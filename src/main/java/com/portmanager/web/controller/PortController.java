@@ -1,19 +1,38 @@
 package com.portmanager.web.controller;
 
+import com.portmanager.web.model.BatchKillJob;
+import com.portmanager.web.model.PortDiff;
 import com.portmanager.web.model.PortInfo;
+import com.portmanager.web.model.PortLease;
+import com.portmanager.web.model.PortOccupancy;
+import com.portmanager.web.model.PortSnapshot;
+import com.portmanager.web.model.ProcessInfo;
+import com.portmanager.web.model.ProbeResult;
+import com.portmanager.web.scanner.ClassificationCache;
+import com.portmanager.web.scanner.DevProcessMatcher;
 import com.portmanager.web.scanner.PortScannerFactory;
+import com.portmanager.web.service.BatchKillService;
+import com.portmanager.web.service.PortHistoryStore;
+import com.portmanager.web.service.PortLeaseService;
+import com.portmanager.web.service.PortProbeService;
 import com.portmanager.web.service.PortScanService;
+import com.portmanager.web.service.PortStreamService;
+import com.portmanager.web.service.ScanScheduler;
 import com.portmanager.web.service.ProcessManageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 端口管理REST API控制器
@@ -24,41 +43,327 @@ public class PortController {
 
     private static final Logger log = LoggerFactory.getLogger(PortController.class);
 
+    private static final String INVALID_PROTOCOL = "?";
+
     @Autowired
     private PortScanService portScanService;
 
     @Autowired
     private ProcessManageService processManageService;
 
+    @Autowired
+    private BatchKillService batchKillService;
+
     @Autowired
     private PortScannerFactory portScannerFactory;
 
+    @Autowired
+    private PortStreamService portStreamService;
+
+    @Autowired
+    private ScanScheduler scanScheduler;
+
+    @Autowired
+    private ClassificationCache classificationCache;
+
+    @Autowired
+    private PortLeaseService portLeaseService;
+
+    @Autowired
+    private PortProbeService portProbeService;
+
+    @Autowired
+    private DevProcessMatcher devProcessMatcher;
+
+    @Autowired
+    private PortHistoryStore portHistoryStore;
+
     /**
      * 获取所有端口信息
+     * 指定 range (如 3000-3999) 时只返回范围内被占用的端口号，可用 proto (tcp/udp) 限定协议
      */
     @GetMapping("/ports")
-    public ResponseEntity<Map<String, Object>> getAllPorts() {
-        List<PortInfo> ports = portScanService.getAllPorts();
+    public ResponseEntity<Map<String, Object>> getAllPorts(
+            @RequestParam(value = "range", required = false) String range,
+            @RequestParam(value = "proto", required = false) String proto) {
+        PortSnapshot snapshot = portScanService.getSnapshot();
         Map<String, Object> response = new HashMap<>();
+        if (range != null) {
+            int[] bounds = parseRange(range);
+            String protocol = parseProtocol(proto);
+            if (bounds == null || INVALID_PROTOCOL.equals(protocol)) {
+                response.put("success", false);
+                response.put("message", "Invalid range or protocol");
+                return ResponseEntity.ok(response);
+            }
+            int[] ports = snapshot.getOccupancy().getOccupied(protocol, bounds[0], bounds[1]);
+            response.put("success", true);
+            response.put("ports", ports);
+            response.put("count", ports.length);
+            response.put("version", snapshot.getVersion());
+            response.put("lastScanTime", snapshot.getScanTime());
+            return ResponseEntity.ok(response);
+        }
+
         response.put("success", true);
-        response.put("data", ports);
-        response.put("count", ports.size());
-        response.put("lastScanTime", portScanService.getLastScanTime());
+        response.put("data", snapshot.getPorts());
+        response.put("count", snapshot.size());
+        response.put("version", snapshot.getVersion());
+        response.put("lastScanTime", snapshot.getScanTime());
+        // 首次扫描完成前返回的是上次保存的快照
+        response.put("warming", portScanService.isWarming());
         response.put("osType", portScannerFactory.getOsType());
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 获取指定版本之后的端口变化
+     * 版本超出保留窗口时返回全量数据 (fullResync=true)
+     */
+    @GetMapping("/ports/changes")
+    public ResponseEntity<Map<String, Object>> getPortChanges(@RequestParam long since) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+
+        PortDiff diff = portScanService.getChangesSince(since);
+        if (diff == null) {
+            PortSnapshot snapshot = portScanService.getSnapshot();
+            response.put("fullResync", true);
+            response.put("version", snapshot.getVersion());
+            response.put("data", snapshot.getPorts());
+            response.put("count", snapshot.size());
+            response.put("lastScanTime", snapshot.getScanTime());
+            return ResponseEntity.ok(response);
+        }
+
+        response.put("fullResync", false);
+        response.put("fromVersion", diff.getFromVersion());
+        response.put("version", diff.getToVersion());
+        response.put("added", diff.getAdded());
+        response.put("removed", diff.getRemoved());
+        response.put("changed", diff.getChanged());
+        response.put("counts", diff.getCounts());
+        response.put("lastScanTime", diff.getScanTime());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 订阅端口变化推送 (SSE)
+     * 连接后先收到 snapshot 事件，之后每次有变化收到 delta 事件；事件ID为快照版本号
+     */
+    @GetMapping(value = "/ports/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPorts(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return portStreamService.subscribe(lastEventId);
+    }
+
+    /**
+     * 查询范围内的空闲端口 (不含已租出的端口，只查询不租出)
+     *
+     * @param range 端口范围，如 3000-3999 或 8080，默认 1024-65535
+     * @param proto tcp / udp，默认要求所有协议都未占用
+     * @param count 返回的端口数，从小到大
+     */
+    @GetMapping("/ports/free")
+    public ResponseEntity<Map<String, Object>> getFreePorts(
+            @RequestParam(value = "range", defaultValue = "1024-65535") String range,
+            @RequestParam(value = "proto", required = false) String proto,
+            @RequestParam(value = "count", defaultValue = "1") int count) {
+        int[] bounds = parseRange(range);
+        String protocol = parseProtocol(proto);
+        Map<String, Object> response = new HashMap<>();
+        if (bounds == null || INVALID_PROTOCOL.equals(protocol) || count <= 0) {
+            response.put("success", false);
+            response.put("message", "Invalid range, protocol or count");
+            return ResponseEntity.ok(response);
+        }
+
+        PortSnapshot snapshot = portScanService.getSnapshot();
+        // 已租给其他调用方的端口不返回
+        int[] ports = portLeaseService.findFree(snapshot.getOccupancy(), protocol, bounds[0], bounds[1], count);
+        response.put("success", true);
+        response.put("ports", ports);
+        response.put("count", ports.length);
+        response.put("version", snapshot.getVersion());
+        response.put("lastScanTime", snapshot.getScanTime());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 主动探测端口并与快照对照
+     * 不指定 range 时探测 port-manager.probe.ports (默认为常用端口)
+     */
+    @PostMapping("/ports/probe")
+    public ResponseEntity<Map<String, Object>> probePorts(
+            @RequestParam(value = "range", required = false) String range) {
+        Map<String, Object> response = new HashMap<>();
+        int[] bounds = range == null ? null : parseRange(range);
+        if (range != null && bounds == null) {
+            response.put("success", false);
+            response.put("message", "Invalid range");
+            return ResponseEntity.ok(response);
+        }
+
+        try {
+            ProbeResult result = bounds == null ? portProbeService.probeDefault()
+                    : portProbeService.probeRange(bounds[0], bounds[1]);
+            response.put("success", true);
+            response.put("data", result);
+        } catch (Exception e) {
+            log.error("Active probe failed", e);
+            response.put("success", false);
+            response.put("message", "Probe failed: " + e.getMessage());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 上次主动探测的结果
+     */
+    @GetMapping("/ports/probe")
+    public ResponseEntity<Map<String, Object>> getProbeResult() {
+        Map<String, Object> response = new HashMap<>();
+        ProbeResult result = portProbeService.getLastResult();
+        if (result == null) {
+            response.put("success", false);
+            response.put("message", "No probe has run yet");
+            return ResponseEntity.ok(response);
+        }
+        response.put("success", true);
+        response.put("data", result);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 分配空闲端口并租出
+     * 请求体: range (默认 1024-65535)、count (默认 1)、proto (tcp/udp，可选)、ttlMs (可选)、owner (可选)。
+     * 租约内的端口不会分配给其他调用方，端口上出现监听或租约到期后自动归还。
+     */
+    @PostMapping("/ports/leases")
+    public ResponseEntity<Map<String, Object>> allocatePorts(@RequestBody Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+        Object rangeValue = request.getOrDefault("range", "1024-65535");
+        Object countValue = request.getOrDefault("count", 1);
+        Object ttlValue = request.getOrDefault("ttlMs", 0);
+        Object protoValue = request.get("proto");
+        Object owner = request.get("owner");
+
+        int[] bounds = parseRange(String.valueOf(rangeValue));
+        String protocol = parseProtocol(protoValue == null ? null : protoValue.toString());
+        if (bounds == null || INVALID_PROTOCOL.equals(protocol)
+                || !(countValue instanceof Number) || !(ttlValue instanceof Number)) {
+            response.put("success", false);
+            response.put("message", "Invalid range, protocol or count");
+            return ResponseEntity.ok(response);
+        }
+
+        try {
+            PortLease lease = portLeaseService.allocate(bounds[0], bounds[1], ((Number) countValue).intValue(),
+                    protocol, ((Number) ttlValue).longValue(), owner == null ? null : owner.toString());
+            if (lease == null) {
+                response.put("success", false);
+                response.put("message", "Not enough free ports in range");
+                return ResponseEntity.ok(response);
+            }
+            response.put("success", true);
+            response.put("data", lease);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 当前有效的端口租约
+     */
+    @GetMapping("/ports/leases")
+    public ResponseEntity<Map<String, Object>> getLeases() {
+        List<PortLease> leases = portLeaseService.getLeases();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", leases);
+        response.put("count", leases.size());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 查询端口租约
+     */
+    @GetMapping("/ports/leases/{leaseId}")
+    public ResponseEntity<Map<String, Object>> getLease(@PathVariable("leaseId") String leaseId) {
+        Map<String, Object> response = new HashMap<>();
+        PortLease lease = portLeaseService.getLease(leaseId);
+        if (lease == null) {
+            response.put("success", false);
+            response.put("message", "Lease not found or ended: " + leaseId);
+            return ResponseEntity.ok(response);
+        }
+        response.put("success", true);
+        response.put("data", lease);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 提前释放端口租约
+     */
+    @DeleteMapping("/ports/leases/{leaseId}")
+    public ResponseEntity<Map<String, Object>> releaseLease(@PathVariable("leaseId") String leaseId) {
+        Map<String, Object> response = new HashMap<>();
+        PortLease lease = portLeaseService.release(leaseId);
+        if (lease == null) {
+            response.put("success", false);
+            response.put("message", "Lease not found or ended: " + leaseId);
+            return ResponseEntity.ok(response);
+        }
+        response.put("success", true);
+        response.put("data", lease);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 查询指定时间的端口状态 (由端口日志重放)
+     *
+     * @param time 毫秒时间戳
+     */
+    @GetMapping("/ports/at")
+    public ResponseEntity<Map<String, Object>> getPortsAt(@RequestParam("time") Long time) {
+        PortSnapshot snapshot = portScanService.getSnapshotAt(time);
+        Map<String, Object> response = new HashMap<>();
+        if (snapshot == null) {
+            response.put("success", false);
+            response.put("message", "No journal data for the given time");
+            return ResponseEntity.ok(response);
+        }
+
+        response.put("success", true);
+        response.put("time", time);
+        response.put("data", snapshot.getPorts());
+        response.put("count", snapshot.size());
+        response.put("version", snapshot.getVersion());
+        response.put("lastScanTime", snapshot.getScanTime());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 查询指定端口
+     * 指定 maxAgeMs 且快照中该端口的数据更旧时，单独探测该端口并合并到快照
      */
     @GetMapping("/ports/{port}")
-    public ResponseEntity<Map<String, Object>> getPort(@PathVariable Integer port) {
-        PortInfo portInfo = portScanService.getPort(port);
+    public ResponseEntity<Map<String, Object>> getPort(
+            @PathVariable Integer port,
+            @RequestParam(value = "maxAgeMs", required = false) Long maxAgeMs) {
+        List<PortInfo> sockets = maxAgeMs != null
+                ? portScanService.getPortsByPort(port, maxAgeMs)
+                : portScanService.getPortsByPort(port);
         Map<String, Object> response = new HashMap<>();
 
-        if (portInfo != null) {
+        if (!sockets.isEmpty()) {
             response.put("success", true);
-            response.put("data", portInfo);
+            response.put("data", sockets.get(0));
+            // 同一端口可能有多个socket (IPv4/IPv6、TCP/UDP、多个工作进程)
+            response.put("sockets", sockets);
+            response.put("lastScanTime", portScanService.getSnapshot().getPortScanTime(port));
             return ResponseEntity.ok(response);
         } else {
             response.put("success", false);
@@ -67,6 +372,30 @@ public class PortController {
         }
     }
 
+    /**
+     * 查询端口占用历史
+     * from / to 为毫秒时间戳，默认为保留时长内的全部历史
+     */
+    @GetMapping("/ports/{port}/history")
+    public ResponseEntity<Map<String, Object>> getPortHistory(
+            @PathVariable Integer port,
+            @RequestParam(value = "from", required = false) Long from,
+            @RequestParam(value = "to", required = false) Long to) {
+        Map<String, Object> response = new HashMap<>();
+        long now = System.currentTimeMillis();
+        long start = from != null ? from : now - portHistoryStore.getRetentionMs();
+        long end = to != null ? to : now;
+        if (port < 0 || port > 65535 || start > end) {
+            response.put("success", false);
+            response.put("message", "Invalid port or time range");
+            return ResponseEntity.ok(response);
+        }
+
+        response.put("success", true);
+        response.put("data", portHistoryStore.query(port, start, end));
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 搜索端口 (支持端口号/进程名/PID)
      */
@@ -81,13 +410,51 @@ public class PortController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 查询进程信息
+     * 默认取自最近一次扫描的快照；指定 maxAgeMs 时快照早于该时长则重新查询进程
+     */
+    @GetMapping("/process/{pid}")
+    public ResponseEntity<Map<String, Object>> getProcessInfo(
+            @PathVariable("pid") Long pid,
+            @RequestParam(value = "maxAgeMs", required = false, defaultValue = "-1") Long maxAgeMs) {
+        ProcessInfo processInfo = processManageService.getProcessInfo(pid, maxAgeMs);
+        Map<String, Object> response = new HashMap<>();
+
+        if (processInfo != null) {
+            response.put("success", true);
+            response.put("data", processInfo);
+        } else {
+            response.put("success", false);
+            response.put("message", "Process not found or already terminated");
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 查询指定进程监听的全部socket
+     */
+    @GetMapping("/process/{pid}/ports")
+    public ResponseEntity<Map<String, Object>> getProcessPorts(@PathVariable("pid") Long pid) {
+        List<PortInfo> sockets = portScanService.getPortsByPid(pid);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("pid", pid);
+        response.put("data", sockets);
+        response.put("count", sockets.size());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 关闭进程
+     * 默认 SIGTERM 后等待宽限期再 SIGKILL，force=true 时直接 SIGKILL。
+     * 不等待进程退出，进程退出前 state 为 PENDING，结果通过 GET /api/process/{pid}/termination 查询
      */
     @DeleteMapping("/process/{pid}")
     public ResponseEntity<Map<String, Object>> killProcess(
             @PathVariable("pid") Long pid,
-            @RequestParam(value = "permanent", required = false, defaultValue = "false") Boolean permanent) {
+            @RequestParam(value = "permanent", required = false, defaultValue = "false") Boolean permanent,
+            @RequestParam(value = "force", required = false, defaultValue = "false") Boolean force) {
         Map<String, Object> response = new HashMap<>();
 
         // 检查进程是否存在
@@ -97,24 +464,23 @@ public class PortController {
             return ResponseEntity.ok(response);
         }
 
-        // 关闭进程
-        boolean success;
-        if (permanent) {
-            // 永久停止服务
-            success = processManageService.killProcessPermanently(pid);
-        } else {
-            // 临时关闭进程
-            success = processManageService.killProcess(pid);
-        }
+        // 关闭进程: 永久停止服务或临时关闭进程
+        CompletableFuture<ProcessManageService.TerminationResult> termination = permanent
+                ? processManageService.terminateProcessPermanently(pid, force)
+                : processManageService.terminateProcess(pid, force);
+        ProcessManageService.TerminationResult result = termination.getNow(null);
 
-        if (success) {
+        if (result != ProcessManageService.TerminationResult.FAILED) {
             response.put("success", true);
-            response.put("message", permanent ? "Service stopped permanently" : "Process killed successfully");
+            response.put("message", result == null ? "Termination requested"
+                    : result.isServiceStopped() && permanent ? "Service stopped permanently" : result.getMessage());
+            response.put("state", result == null ? "PENDING" : result.name());
             response.put("pid", pid);
             response.put("permanent", permanent);
+            response.put("force", force);
 
-            // 立即触发一次扫描以更新端口列表
-            portScanService.scanAllPorts();
+            // 进程可能仍在宽限期内退出，不在请求线程中等待；加快接下来的扫描以跟踪进程退出
+            scanScheduler.boost();
         } else {
             response.put("success", false);
             response.put("message", permanent ?
@@ -125,8 +491,29 @@ public class PortController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 查询最近一次关闭进程的结果
+     * state 为 PENDING (等待进程退出) / SERVICE_STOPPED / TERMINATED / KILLED_AFTER_GRACE / KILLED / FAILED
+     */
+    @GetMapping("/process/{pid}/termination")
+    public ResponseEntity<Map<String, Object>> getTermination(@PathVariable("pid") Long pid) {
+        Map<String, Object> response = new HashMap<>();
+        CompletableFuture<ProcessManageService.TerminationResult> termination = processManageService.getTermination(pid);
+        if (termination == null) {
+            response.put("success", false);
+            response.put("message", "No termination requested for PID: " + pid);
+            return ResponseEntity.ok(response);
+        }
+        ProcessManageService.TerminationResult result = termination.getNow(null);
+        response.put("success", true);
+        response.put("pid", pid);
+        response.put("state", result == null ? "PENDING" : result.name());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 批量关闭进程
+     * 提交为后台任务后立即返回任务ID，进度和结果通过 GET /api/process/batch/{jobId} 查询
      */
     @DeleteMapping("/process/batch")
     public ResponseEntity<Map<String, Object>> batchKillProcesses(@RequestBody Map<String, Object> request) {
@@ -134,67 +521,34 @@ public class PortController {
 
         try {
             @SuppressWarnings("unchecked")
-            List<Integer> pids = (List<Integer>) request.get("pids");
+            List<Number> pidList = (List<Number>) request.get("pids");
             Boolean permanent = (Boolean) request.getOrDefault("permanent", false);
+            Boolean force = (Boolean) request.getOrDefault("force", false);
 
-            if (pids == null || pids.isEmpty()) {
+            if (pidList == null || pidList.isEmpty()) {
                 response.put("success", false);
                 response.put("message", "No PIDs provided");
                 return ResponseEntity.ok(response);
             }
 
-            log.info("Batch killing {} processes, permanent: {}", pids.size(), permanent);
-
-            List<Map<String, Object>> results = new ArrayList<>();
-            int successCount = 0;
-            int failCount = 0;
-
-            for (Integer pidInt : pids) {
-                Long pid = pidInt.longValue();
-                Map<String, Object> result = new HashMap<>();
-                result.put("pid", pid);
-
-                // 检查进程是否存在
-                if (!processManageService.isProcessAlive(pid)) {
-                    result.put("success", false);
-                    result.put("message", "Process not found or already terminated");
-                    failCount++;
-                } else {
-                    // 关闭进程
-                    boolean success;
-                    if (permanent) {
-                        success = processManageService.killProcessPermanently(pid);
-                    } else {
-                        success = processManageService.killProcess(pid);
-                    }
-
-                    result.put("success", success);
-                    result.put("message", success ?
-                            (permanent ? "Service stopped permanently" : "Process killed successfully") :
-                            "Failed to kill process");
-
-                    if (success) {
-                        successCount++;
-                    } else {
-                        failCount++;
-                    }
-                }
-
-                results.add(result);
+            Set<Long> pids = new LinkedHashSet<>();
+            for (Number pid : pidList) {
+                pids.add(pid.longValue());
+            }
+
+            BatchKillJob job = batchKillService.submit(pids, permanent, force);
+            if (job == null) {
+                response.put("success", false);
+                response.put("message", "Too many pending kills, please retry later");
+                return ResponseEntity.ok(response);
             }
 
             response.put("success", true);
-            response.put("results", results);
-            response.put("total", pids.size());
-            response.put("successCount", successCount);
-            response.put("failCount", failCount);
+            response.put("jobId", job.getJobId());
+            response.put("status", job.getStatus());
+            response.put("total", job.getTotal());
             response.put("permanent", permanent);
-
-            log.info("Batch kill completed: {} success, {} failed", successCount, failCount);
-
-            // 立即触发一次扫描以更新端口列表
-            portScanService.scanAllPorts();
-
+            response.put("force", force);
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
@@ -205,12 +559,30 @@ public class PortController {
         }
     }
 
+    /**
+     * 查询批量关闭任务的进度和结果
+     */
+    @GetMapping("/process/batch/{jobId}")
+    public ResponseEntity<Map<String, Object>> getBatchKillJob(@PathVariable("jobId") String jobId) {
+        Map<String, Object> response = new HashMap<>();
+        BatchKillJob job = batchKillService.getJob(jobId);
+        if (job == null) {
+            response.put("success", false);
+            response.put("message", "Job not found: " + jobId);
+            return ResponseEntity.ok(response);
+        }
+        response.put("success", true);
+        response.put("data", job);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 手动触发扫描
      */
     @PostMapping("/scan")
     public ResponseEntity<Map<String, Object>> triggerScan() {
         List<PortInfo> ports = portScanService.scanAllPorts();
+        scanScheduler.boost();
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
         response.put("message", "Scan completed");
@@ -219,6 +591,46 @@ public class PortController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 获取开发进程关键字
+     */
+    @GetMapping("/dev-process-keywords")
+    public ResponseEntity<Map<String, Object>> getDevProcessKeywords() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", devProcessMatcher.getKeywords());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 重新加载开发进程关键字 (不重启生效，重启后恢复为配置文件中的值)
+     * 请求体: {"keywords": "idea,java,node"} 或 {"keywords": ["idea", "java", "node"]}
+     */
+    @PutMapping("/dev-process-keywords")
+    public ResponseEntity<Map<String, Object>> reloadDevProcessKeywords(@RequestBody Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+
+        Object keywords = request.get("keywords");
+        if (keywords instanceof List) {
+            keywords = String.join(",", ((List<?>) keywords).stream()
+                    .map(String::valueOf)
+                    .toArray(String[]::new));
+        }
+        if (!(keywords instanceof String)) {
+            response.put("success", false);
+            response.put("message", "No keywords provided");
+            return ResponseEntity.ok(response);
+        }
+
+        devProcessMatcher.reload((String) keywords);
+        // 加快下一次扫描，使开发进程标记按新关键字更新，不在请求线程中扫描
+        scanScheduler.boost();
+
+        response.put("success", true);
+        response.put("data", devProcessMatcher.getKeywords());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 获取统计信息
      */
@@ -243,6 +655,13 @@ public class PortController {
         systemInfo.put("osType", portScannerFactory.getOsType());
         systemInfo.put("javaVersion", System.getProperty("java.version"));
 
+        Map<String, Object> cacheInfo = new HashMap<>();
+        cacheInfo.put("size", classificationCache.size());
+        cacheInfo.put("hits", classificationCache.getHits());
+        cacheInfo.put("misses", classificationCache.getMisses());
+        cacheInfo.put("evictions", classificationCache.getEvictions());
+        systemInfo.put("classificationCache", cacheInfo);
+
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
         response.put("data", systemInfo);
@@ -260,4 +679,36 @@ public class PortController {
         response.put("timestamp", System.currentTimeMillis());
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    /**
+     * 解析端口范围 "a-b" 或单个端口 "a"，无效时返回 null
+     * 端口0不能作为指定端口使用，范围从1开始
+     */
+    private static int[] parseRange(String range) {
+        String[] parts = range.trim().split("-", -1);
+        if (parts.length > 2) {
+            return null;
+        }
+        try {
+            int from = Integer.parseInt(parts[0].trim());
+            int to = parts.length == 2 ? Integer.parseInt(parts[1].trim()) : from;
+            if (from < 1 || to > PortOccupancy.MAX_PORT || from > to) {
+                return null;
+            }
+            return new int[]{from, to};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * tcp / udp 转为大写，未指定时返回 null (任意协议)，其他值返回 INVALID_PROTOCOL
+     */
+    private static String parseProtocol(String proto) {
+        if (proto == null || proto.isEmpty()) {
+            return null;
+        }
+        String protocol = proto.trim().toUpperCase();
+        return "TCP".equals(protocol) || "UDP".equals(protocol) ? protocol : INVALID_PROTOCOL;
+    }
+}
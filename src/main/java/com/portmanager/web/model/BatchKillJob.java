@@ -0,0 +1,172 @@
+package com.portmanager.web.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量关闭任务
+ * 各PID并行处理，结果随处理进度更新，可在任务运行中随时读取。
+ */
+public class BatchKillJob {
+
+    private final String jobId;
+    private final boolean permanent;
+    private final boolean force;
+    private final long createdTime;
+    private volatile long finishedTime;
+    private final List<PidResult> results;
+
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger successCount = new AtomicInteger();
+    private final AtomicInteger failCount = new AtomicInteger();
+
+    public BatchKillJob(String jobId, Collection<Long> pids, boolean permanent, boolean force) {
+        this.jobId = jobId;
+        this.permanent = permanent;
+        this.force = force;
+        this.createdTime = System.currentTimeMillis();
+        List<PidResult> list = new ArrayList<>(pids.size());
+        for (Long pid : pids) {
+            list.add(new PidResult(pid));
+        }
+        this.results = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * 记录一个PID的处理结果
+     *
+     * @return 是否为最后一个完成的PID
+     */
+    public boolean complete(PidResult result, boolean success, String message) {
+        return complete(result, success, message, null);
+    }
+
+    /**
+     * 记录一个PID的处理结果
+     *
+     * @param termination 关闭结果 (TERMINATED / KILLED / FAILED)，未发出信号时为null
+     * @return 是否为最后一个完成的PID
+     */
+    public boolean complete(PidResult result, boolean success, String message, String termination) {
+        result.success = success;
+        result.message = message;
+        result.termination = termination;
+        result.state = success ? "SUCCESS" : "FAILED";
+        if (success) {
+            successCount.incrementAndGet();
+        } else {
+            failCount.incrementAndGet();
+        }
+        boolean last = completed.incrementAndGet() == results.size();
+        if (last) {
+            finishedTime = System.currentTimeMillis();
+        }
+        return last;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public boolean isPermanent() {
+        return permanent;
+    }
+
+    /**
+     * 是否跳过宽限期直接 SIGKILL
+     */
+    public boolean isForce() {
+        return force;
+    }
+
+    /**
+     * RUNNING / COMPLETED
+     */
+    public String getStatus() {
+        return hasFinished() ? "COMPLETED" : "RUNNING";
+    }
+
+    public boolean hasFinished() {
+        return completed.get() == results.size();
+    }
+
+    public int getTotal() {
+        return results.size();
+    }
+
+    public int getCompleted() {
+        return completed.get();
+    }
+
+    public int getSuccessCount() {
+        return successCount.get();
+    }
+
+    public int getFailCount() {
+        return failCount.get();
+    }
+
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    public Long getFinishedTime() {
+        return finishedTime > 0 ? finishedTime : null;
+    }
+
+    public List<PidResult> getResults() {
+        return results;
+    }
+
+    /**
+     * 单个PID的处理结果
+     */
+    public static class PidResult {
+        private final Long pid;
+        private volatile String state = "PENDING"; // PENDING, RUNNING, SUCCESS, FAILED
+        private volatile Boolean success;
+        private volatile String message;
+        private volatile String termination;
+
+        public PidResult(Long pid) {
+            this.pid = pid;
+        }
+
+        public void start() {
+            this.state = "RUNNING";
+        }
+
+        /**
+         * 开始发送信号，进程退出前保持此消息
+         */
+        public void requested() {
+            this.message = "Termination requested";
+        }
+
+        public Long getPid() {
+            return pid;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        public Boolean getSuccess() {
+            return success;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * 关闭结果 TERMINATED / KILLED / FAILED，进程退出前为null
+         */
+        public String getTermination() {
+            return termination;
+        }
+    }
+}
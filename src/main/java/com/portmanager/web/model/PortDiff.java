@@ -0,0 +1,217 @@
+package com.portmanager.web.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 两个相邻快照之间的差异
+ * added: 新出现的socket; removed: 已消失的socket(旧值); changed: 仍存在但信息有变化的socket(新值)
+ * counts: 只有连接数或新建速率变化的socket(新值)，不算作socket的变化，不写入日志和历史
+ * socket按 {@link SocketKey} 对应，PID变化视为旧socket消失、新socket出现
+ */
+public final class PortDiff {
+
+    private final long fromVersion;
+    private final long toVersion;
+    private final long scanTime;
+    private final List<PortInfo> added;
+    private final List<PortInfo> removed;
+    private final List<PortInfo> changed;
+    private final List<PortInfo> counts;
+
+    public PortDiff(long fromVersion, long toVersion, long scanTime,
+                    List<PortInfo> added, List<PortInfo> removed, List<PortInfo> changed) {
+        this(fromVersion, toVersion, scanTime, added, removed, changed, Collections.<PortInfo>emptyList());
+    }
+
+    public PortDiff(long fromVersion, long toVersion, long scanTime,
+                    List<PortInfo> added, List<PortInfo> removed, List<PortInfo> changed, List<PortInfo> counts) {
+        this.fromVersion = fromVersion;
+        this.toVersion = toVersion;
+        this.scanTime = scanTime;
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+        this.counts = Collections.unmodifiableList(counts);
+    }
+
+    /**
+     * 计算两个快照之间的差异
+     */
+    public static PortDiff between(PortSnapshot previous, PortSnapshot current) {
+        return between(previous, current, current.getScanTime());
+    }
+
+    /**
+     * 计算两个快照之间的差异
+     *
+     * @param time 变化的观测时间 (单独探测端口时为探测时间)
+     */
+    public static PortDiff between(PortSnapshot previous, PortSnapshot current, long time) {
+        List<PortInfo> added = new ArrayList<>();
+        List<PortInfo> removed = new ArrayList<>();
+        List<PortInfo> changed = new ArrayList<>();
+        List<PortInfo> counts = new ArrayList<>();
+
+        for (PortInfo portInfo : current.getPorts()) {
+            PortInfo old = previous.getSocket(SocketKey.of(portInfo));
+            if (old == null) {
+                added.add(portInfo);
+            } else if (isChanged(old, portInfo)) {
+                changed.add(portInfo);
+            } else if (isCountChanged(old, portInfo)) {
+                counts.add(portInfo);
+            }
+        }
+        for (PortInfo old : previous.getPorts()) {
+            if (current.getSocket(SocketKey.of(old)) == null) {
+                removed.add(old);
+            }
+        }
+
+        return new PortDiff(previous.getVersion(), current.getVersion(), time, added, removed, changed, counts);
+    }
+
+    /**
+     * 将连续的多个差异合并为一个
+     * 中间出现又消失的socket不会出现在结果中；连接数更新只保留最新值，socket本身有变化时并入 added / changed
+     *
+     * @param diffs 按版本连续排列的差异，不能为空
+     */
+    public static PortDiff merge(List<PortDiff> diffs) {
+        if (diffs.size() == 1) {
+            return diffs.get(0);
+        }
+
+        Map<SocketKey, MergeState> states = new LinkedHashMap<>();
+        Map<SocketKey, PortInfo> countStates = new LinkedHashMap<>();
+        for (PortDiff diff : diffs) {
+            for (PortInfo portInfo : diff.added) {
+                SocketKey key = SocketKey.of(portInfo);
+                countStates.remove(key);
+                states.computeIfAbsent(key, k -> new MergeState(false)).update(portInfo, true);
+            }
+            for (PortInfo portInfo : diff.changed) {
+                SocketKey key = SocketKey.of(portInfo);
+                countStates.remove(key);
+                states.computeIfAbsent(key, k -> new MergeState(true)).update(portInfo, true);
+            }
+            for (PortInfo portInfo : diff.removed) {
+                SocketKey key = SocketKey.of(portInfo);
+                countStates.remove(key);
+                states.computeIfAbsent(key, k -> new MergeState(true)).update(portInfo, false);
+            }
+            for (PortInfo portInfo : diff.counts) {
+                SocketKey key = SocketKey.of(portInfo);
+                MergeState state = states.get(key);
+                if (state != null && state.existsNow) {
+                    state.update(portInfo, true);
+                } else {
+                    countStates.put(key, portInfo);
+                }
+            }
+        }
+
+        List<PortInfo> added = new ArrayList<>();
+        List<PortInfo> removed = new ArrayList<>();
+        List<PortInfo> changed = new ArrayList<>();
+        for (MergeState state : states.values()) {
+            if (!state.existedBefore && state.existsNow) {
+                added.add(state.portInfo);
+            } else if (state.existedBefore && state.existsNow) {
+                changed.add(state.portInfo);
+            } else if (state.existedBefore) {
+                removed.add(state.portInfo);
+            }
+        }
+
+        PortDiff first = diffs.get(0);
+        PortDiff last = diffs.get(diffs.size() - 1);
+        return new PortDiff(first.fromVersion, last.toVersion, last.scanTime, added, removed, changed,
+                new ArrayList<>(countStates.values()));
+    }
+
+    /**
+     * 判断同一socket的信息是否发生变化
+     * 连接数和新建速率每次扫描都可能不同，不作为变化，单独记入 counts
+     */
+    private static boolean isChanged(PortInfo a, PortInfo b) {
+        return !Objects.equals(a.getPid(), b.getPid()) ||
+               !Objects.equals(a.getProtocol(), b.getProtocol()) ||
+               !Objects.equals(a.getStatus(), b.getStatus()) ||
+               !Objects.equals(a.getProcessName(), b.getProcessName()) ||
+               !Objects.equals(a.getCommandLine(), b.getCommandLine()) ||
+               !Objects.equals(a.getUser(), b.getUser()) ||
+               !Objects.equals(a.getLocalAddress(), b.getLocalAddress()) ||
+               !Objects.equals(a.getRemoteAddress(), b.getRemoteAddress()) ||
+               !Objects.equals(a.getPortType(), b.getPortType()) ||
+               !Objects.equals(a.getProcessType(), b.getProcessType()) ||
+               !Objects.equals(a.getIsDevelopmentProcess(), b.getIsDevelopmentProcess());
+    }
+
+    private static boolean isCountChanged(PortInfo a, PortInfo b) {
+        return !Objects.equals(a.getEstablishedConnections(), b.getEstablishedConnections()) ||
+               !Objects.equals(a.getNewConnectionRate(), b.getNewConnectionRate());
+    }
+
+    public boolean hasChanges() {
+        return !added.isEmpty() || !removed.isEmpty() || !changed.isEmpty();
+    }
+
+    /**
+     * 是否有连接数更新
+     */
+    public boolean hasCountChanges() {
+        return !counts.isEmpty();
+    }
+
+    public long getFromVersion() {
+        return fromVersion;
+    }
+
+    public long getToVersion() {
+        return toVersion;
+    }
+
+    public long getScanTime() {
+        return scanTime;
+    }
+
+    public List<PortInfo> getAdded() {
+        return added;
+    }
+
+    public List<PortInfo> getRemoved() {
+        return removed;
+    }
+
+    public List<PortInfo> getChanged() {
+        return changed;
+    }
+
+    public List<PortInfo> getCounts() {
+        return counts;
+    }
+
+    /**
+     * 合并过程中单个socket的状态
+     */
+    private static class MergeState {
+        private final boolean existedBefore;
+        private boolean existsNow;
+        private PortInfo portInfo; // 已删除时为最后一次出现的值
+
+        private MergeState(boolean existedBefore) {
+            this.existedBefore = existedBefore;
+        }
+
+        private void update(PortInfo portInfo, boolean existsNow) {
+            this.portInfo = portInfo;
+            this.existsNow = existsNow;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.portmanager.web.model;
+
+import java.util.List;
+
+/**
+ * 端口占用历史
+ * events: 时间范围内的打开/关闭事件 (按时间升序)
+ * intervals: 与时间范围有重叠的占用区间
+ */
+public class PortHistory {
+
+    private final int port;
+    private final long from;
+    private final long to;
+    private final List<Event> events;
+    private final List<Interval> intervals;
+
+    public PortHistory(int port, long from, long to, List<Event> events, List<Interval> intervals) {
+        this.port = port;
+        this.from = from;
+        this.to = to;
+        this.events = events;
+        this.intervals = intervals;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    public List<Interval> getIntervals() {
+        return intervals;
+    }
+
+    /**
+     * 监听socket的打开或关闭
+     */
+    public static class Event {
+        private final long time;
+        private final String type; // OPEN, CLOSE
+        private final Long pid;
+        private final String processName;
+        private final String protocol;
+        private final String localAddress;
+
+        public Event(long time, String type, Long pid, String processName, String protocol, String localAddress) {
+            this.time = time;
+            this.type = type;
+            this.pid = pid;
+            this.processName = processName;
+            this.protocol = protocol;
+            this.localAddress = localAddress;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public Long getPid() {
+            return pid;
+        }
+
+        public String getProcessName() {
+            return processName;
+        }
+
+        public String getProtocol() {
+            return protocol;
+        }
+
+        public String getLocalAddress() {
+            return localAddress;
+        }
+    }
+
+    /**
+     * 一个socket占用端口的区间
+     * start 为null表示打开事件已超出保留范围；end 为null表示仍在占用
+     */
+    public static class Interval {
+        private final Long start;
+        private final Long end;
+        private final Long pid;
+        private final String processName;
+        private final String protocol;
+        private final String localAddress;
+
+        public Interval(Long start, Long end, Long pid, String processName, String protocol, String localAddress) {
+            this.start = start;
+            this.end = end;
+            this.pid = pid;
+            this.processName = processName;
+            this.protocol = protocol;
+            this.localAddress = localAddress;
+        }
+
+        public Long getStart() {
+            return start;
+        }
+
+        public Long getEnd() {
+            return end;
+        }
+
+        public Long getPid() {
+            return pid;
+        }
+
+        public String getProcessName() {
+            return processName;
+        }
+
+        public String getProtocol() {
+            return protocol;
+        }
+
+        public String getLocalAddress() {
+            return localAddress;
+        }
+    }
+}
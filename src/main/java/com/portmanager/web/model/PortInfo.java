@@ -19,6 +19,8 @@ public class PortInfo {
     private String remoteAddress;
     private String portType; // "FRONTEND", "BACKEND", "DATABASE", "OTHER"
     private String processType; // "JAVA", "NODE", "PYTHON", "WEB_SERVER", "DATABASE", "IDE", "BROWSER", "SYSTEM", "OTHER"
+    private Integer establishedConnections; // 端口上的入站 ESTABLISHED 连接数 (仅TCP监听)
+    private Double newConnectionRate; // 与上次全量扫描相比每秒新建的连接数，首次扫描时为null
 
     public PortInfo() {
     }
@@ -101,11 +103,28 @@ public class PortInfo {
             return this;
         }
 
+        public Builder establishedConnections(Integer establishedConnections) {
+            portInfo.establishedConnections = establishedConnections;
+            return this;
+        }
+
+        public Builder newConnectionRate(Double newConnectionRate) {
+            portInfo.newConnectionRate = newConnectionRate;
+            return this;
+        }
+
         public PortInfo build() {
             return portInfo;
         }
     }
 
+    /**
+     * socket唯一标识 (协议/本地地址/PID)，同一端口可有多个socket
+     */
+    public String getKey() {
+        return SocketKey.of(this).toString();
+    }
+
     // Getters and Setters
     public Integer getPort() {
         return port;
@@ -218,4 +237,20 @@ public class PortInfo {
     public void setProcessType(String processType) {
         this.processType = processType;
     }
-}
\ No newline at end of file
+
+    public Integer getEstablishedConnections() {
+        return establishedConnections;
+    }
+
+    public void setEstablishedConnections(Integer establishedConnections) {
+        this.establishedConnections = establishedConnections;
+    }
+
+    public Double getNewConnectionRate() {
+        return newConnectionRate;
+    }
+
+    public void setNewConnectionRate(Double newConnectionRate) {
+        this.newConnectionRate = newConnectionRate;
+    }
+}
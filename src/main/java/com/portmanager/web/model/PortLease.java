@@ -0,0 +1,123 @@
+package com.portmanager.web.model;
+
+import java.util.Arrays;
+
+/**
+ * 端口租约
+ * 租约内的端口在到期前不会再分配给其他调用方；某个端口上出现匹配的监听socket后该端口即归还，
+ * 所有端口归还或租约到期后租约结束。状态由 PortLeaseService 在锁内修改。
+ */
+public class PortLease {
+
+    private final String leaseId;
+    private final String owner;
+    private final String protocol;
+    private final int[] ports;
+    private final boolean[] bound;
+    private final long createdTime;
+    private final long expiresAt;
+
+    private volatile int activeCount;
+    private volatile String status = "ACTIVE";
+
+    public PortLease(String leaseId, String owner, String protocol, int[] ports, long createdTime, long expiresAt) {
+        this.leaseId = leaseId;
+        this.owner = owner;
+        this.protocol = protocol;
+        this.ports = ports;
+        this.bound = new boolean[ports.length];
+        this.createdTime = createdTime;
+        this.expiresAt = expiresAt;
+        this.activeCount = ports.length;
+    }
+
+    /**
+     * 标记端口已被监听
+     *
+     * @return 是否为租约中最后一个未归还的端口
+     */
+    public boolean bind(int port) {
+        int index = Arrays.binarySearch(ports, port);
+        if (index < 0 || bound[index]) {
+            return false;
+        }
+        bound[index] = true;
+        return --activeCount == 0;
+    }
+
+    /**
+     * 结束租约
+     *
+     * @param status RELEASED / EXPIRED / BOUND
+     */
+    public void finish(String status) {
+        this.status = status;
+        this.activeCount = 0;
+    }
+
+    /**
+     * 监听socket的协议是否与租约匹配 (租约未指定协议时任意协议都匹配)
+     */
+    public boolean matches(String protocol) {
+        return this.protocol == null || this.protocol.equalsIgnoreCase(protocol);
+    }
+
+    public boolean isActive() {
+        return "ACTIVE".equals(status);
+    }
+
+    public String getLeaseId() {
+        return leaseId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * 分配的端口 (升序)
+     */
+    public int[] getPorts() {
+        return ports.clone();
+    }
+
+    /**
+     * 仍在租约中的端口 (未出现监听且租约未结束)
+     */
+    public int[] getActivePorts() {
+        if (!isActive()) {
+            return new int[0];
+        }
+        int[] active = new int[ports.length];
+        int count = 0;
+        for (int i = 0; i < ports.length; i++) {
+            if (!bound[i]) {
+                active[count++] = ports[i];
+            }
+        }
+        return Arrays.copyOf(active, count);
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * ACTIVE / BOUND (所有端口都已监听) / RELEASED (调用方释放) / EXPIRED
+     */
+    public String getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,177 @@
+package com.portmanager.web.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 端口占用索引
+ * 每个协议一个 65536 位的位图 (1024 个 long) 和一个升序的端口数组，随快照构建，之后只读。
+ * 范围查询在端口数组上二分查找，空闲端口查询按字扫描位图，均不访问 PortInfo。
+ */
+public final class PortOccupancy {
+
+    public static final int MAX_PORT = 65535;
+
+    /**
+     * 位图的 long 个数
+     */
+    public static final int WORDS = (MAX_PORT + 1) / 64;
+    private static final int[] NO_PORTS = new int[0];
+
+    private final long[] tcp = new long[WORDS];
+    private final long[] udp = new long[WORDS];
+    private final long[] any = new long[WORDS];
+
+    private final int[] tcpPorts;
+    private final int[] udpPorts;
+    private final int[] anyPorts;
+
+    public PortOccupancy(Collection<PortInfo> ports) {
+        for (PortInfo portInfo : ports) {
+            Integer port = portInfo.getPort();
+            if (port == null || port < 0 || port > MAX_PORT) {
+                continue;
+            }
+            if ("TCP".equalsIgnoreCase(portInfo.getProtocol())) {
+                set(tcp, port);
+            } else if ("UDP".equalsIgnoreCase(portInfo.getProtocol())) {
+                set(udp, port);
+            }
+            set(any, port);
+        }
+        this.tcpPorts = toSortedArray(tcp);
+        this.udpPorts = toSortedArray(udp);
+        this.anyPorts = toSortedArray(any);
+    }
+
+    /**
+     * 端口是否被占用
+     *
+     * @param protocol TCP / UDP，null 表示任意协议
+     */
+    public boolean isOccupied(String protocol, int port) {
+        if (port < 0 || port > MAX_PORT) {
+            return false;
+        }
+        return (bits(protocol)[port >>> 6] & (1L << port)) != 0;
+    }
+
+    /**
+     * [from, to] 内被占用的端口 (升序，不重复)
+     *
+     * @param protocol TCP / UDP，null 表示任意协议
+     */
+    public int[] getOccupied(String protocol, int from, int to) {
+        int[] ports = ports(protocol);
+        int start = lowerBound(ports, from);
+        int end = lowerBound(ports, to + 1);
+        return start < end ? Arrays.copyOfRange(ports, start, end) : NO_PORTS;
+    }
+
+    /**
+     * [from, to] 内最小的 count 个空闲端口 (升序)
+     *
+     * @param protocol TCP / UDP，null 表示所有协议都未占用
+     */
+    public int[] getFree(String protocol, int from, int to, int count) {
+        return getFree(protocol, from, to, count, null);
+    }
+
+    /**
+     * [from, to] 内最小的 count 个空闲且不在 excluded 中的端口 (升序)
+     * 端口0不能作为指定端口绑定 (绑定0表示由系统分配)，不会返回
+     *
+     * @param protocol TCP / UDP，null 表示所有协议都未占用
+     * @param excluded 同样布局的位图 (1024 个 long)，置位的端口视为不可用，可为 null
+     */
+    public int[] getFree(String protocol, int from, int to, int count, long[] excluded) {
+        from = Math.max(from, 1);
+        to = Math.min(to, MAX_PORT);
+        if (from > to || count <= 0) {
+            return NO_PORTS;
+        }
+
+        long[] bits = bits(protocol);
+        int[] result = new int[Math.min(count, to - from + 1)];
+        int found = 0;
+        for (int w = from >>> 6; w <= to >>> 6 && found < result.length; w++) {
+            long free = excluded == null ? ~bits[w] : ~(bits[w] | excluded[w]);
+            if (w == from >>> 6) {
+                free &= -1L << from; // 去掉 from 之前的位 (移位数按低6位取)
+            }
+            if (w == to >>> 6) {
+                free &= -1L >>> (63 - (to & 63));
+            }
+            while (free != 0 && found < result.length) {
+                result[found++] = (w << 6) + Long.numberOfTrailingZeros(free);
+                free &= free - 1;
+            }
+        }
+        return found == result.length ? result : Arrays.copyOf(result, found);
+    }
+
+    /**
+     * 被占用的端口数
+     */
+    public int size(String protocol) {
+        return ports(protocol).length;
+    }
+
+    private long[] bits(String protocol) {
+        if ("TCP".equalsIgnoreCase(protocol)) {
+            return tcp;
+        }
+        if ("UDP".equalsIgnoreCase(protocol)) {
+            return udp;
+        }
+        return any;
+    }
+
+    private int[] ports(String protocol) {
+        if ("TCP".equalsIgnoreCase(protocol)) {
+            return tcpPorts;
+        }
+        if ("UDP".equalsIgnoreCase(protocol)) {
+            return udpPorts;
+        }
+        return anyPorts;
+    }
+
+    private static void set(long[] bits, int port) {
+        bits[port >>> 6] |= 1L << port;
+    }
+
+    private static int[] toSortedArray(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        int[] ports = new int[count];
+        int i = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                ports[i++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return ports;
+    }
+
+    /**
+     * 第一个不小于 value 的下标
+     */
+    private static int lowerBound(int[] ports, int value) {
+        int low = 0;
+        int high = ports.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ports[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
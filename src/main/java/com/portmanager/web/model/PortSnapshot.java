@@ -0,0 +1,193 @@
+package com.portmanager.web.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 端口扫描快照
+ * 每次扫描生成一个不可变快照，通过单次引用替换发布，读取方无需加锁即可看到一致的数据。
+ * 发布后其中的 PortInfo 不应再被修改。
+ * 以 {@link SocketKey} 区分socket，同一端口的多个socket互不覆盖；
+ * 构建时同时建立按端口、PID、进程类型的二级索引，按这些维度查询无需遍历全部socket。
+ * 全量扫描之后单独探测过的端口记录各自的探测时间，按端口判断数据新旧。
+ * 另附按协议的端口占用位图 ({@link PortOccupancy})，用于端口范围和空闲端口查询。
+ */
+public final class PortSnapshot {
+
+    public static final PortSnapshot EMPTY = new PortSnapshot(0, 0, Collections.<PortInfo>emptyList());
+
+    private final long version;
+    private final long scanTime;
+    private final Map<SocketKey, PortInfo> socketMap;
+    private final List<PortInfo> ports;
+    private final Map<Integer, List<PortInfo>> byPort;
+    private final Map<Long, List<PortInfo>> byPid;
+    private final Map<String, List<PortInfo>> byProcessType;
+    private final Map<String, Integer> statistics;
+    private final Map<Integer, Long> probeTimes;
+    private final PortOccupancy occupancy;
+
+    public PortSnapshot(long version, long scanTime, List<PortInfo> portList) {
+        this(version, scanTime, portList, Collections.<Integer, Long>emptyMap());
+    }
+
+    /**
+     * @param probeTimes 数据来自单独探测 (而非本次全量扫描) 的端口 -> 探测开始时间
+     */
+    public PortSnapshot(long version, long scanTime, List<PortInfo> portList, Map<Integer, Long> probeTimes) {
+        this.version = version;
+        this.scanTime = scanTime;
+        this.probeTimes = Collections.unmodifiableMap(probeTimes);
+
+        // 同一socket重复出现时 (如多个fd指向同一socket) 保留最后一个
+        Map<SocketKey, PortInfo> map = new LinkedHashMap<>();
+        for (PortInfo portInfo : portList) {
+            map.put(SocketKey.of(portInfo), portInfo);
+        }
+        this.socketMap = Collections.unmodifiableMap(map);
+        this.ports = Collections.unmodifiableList(new ArrayList<>(map.values()));
+
+        Map<Integer, List<PortInfo>> portIndex = new HashMap<>();
+        Map<Long, List<PortInfo>> pidIndex = new HashMap<>();
+        Map<String, List<PortInfo>> processTypeIndex = new HashMap<>();
+        for (PortInfo portInfo : this.ports) {
+            portIndex.computeIfAbsent(portInfo.getPort(), k -> new ArrayList<>(2)).add(portInfo);
+            if (portInfo.getPid() != null) {
+                pidIndex.computeIfAbsent(portInfo.getPid(), k -> new ArrayList<>(2)).add(portInfo);
+            }
+            if (portInfo.getProcessType() != null) {
+                processTypeIndex.computeIfAbsent(portInfo.getProcessType(), k -> new ArrayList<>()).add(portInfo);
+            }
+        }
+        this.byPort = freeze(portIndex);
+        this.byPid = freeze(pidIndex);
+        this.byProcessType = freeze(processTypeIndex);
+        this.statistics = Collections.unmodifiableMap(computeStatistics(this.ports, this.byPort.size()));
+        this.occupancy = new PortOccupancy(this.ports);
+    }
+
+    private static <K> Map<K, List<PortInfo>> freeze(Map<K, List<PortInfo>> index) {
+        for (Map.Entry<K, List<PortInfo>> entry : index.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(index);
+    }
+
+    private static Map<String, Integer> computeStatistics(List<PortInfo> ports, int distinctPorts) {
+        int devProcessCount = 0;
+        int tcpCount = 0;
+        int udpCount = 0;
+        for (PortInfo p : ports) {
+            if (p.getIsDevelopmentProcess() != null && p.getIsDevelopmentProcess()) {
+                devProcessCount++;
+            }
+            if ("TCP".equalsIgnoreCase(p.getProtocol())) {
+                tcpCount++;
+            } else if ("UDP".equalsIgnoreCase(p.getProtocol())) {
+                udpCount++;
+            }
+        }
+
+        Map<String, Integer> stats = new HashMap<>();
+        stats.put("total", ports.size());
+        stats.put("distinctPorts", distinctPorts);
+        stats.put("developmentProcesses", devProcessCount);
+        stats.put("tcp", tcpCount);
+        stats.put("udp", udpCount);
+        return stats;
+    }
+
+    /**
+     * 快照版本号，单调递增
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 扫描完成时间
+     */
+    public long getScanTime() {
+        return scanTime;
+    }
+
+    /**
+     * 指定端口数据的获取时间: 单独探测过时为探测时间，否则为全量扫描时间
+     */
+    public long getPortScanTime(int port) {
+        Long probeTime = probeTimes.get(port);
+        return probeTime != null ? probeTime : scanTime;
+    }
+
+    /**
+     * 数据来自单独探测的端口 -> 探测开始时间 (只读)
+     */
+    public Map<Integer, Long> getProbeTimes() {
+        return probeTimes;
+    }
+
+    /**
+     * 全部端口 (只读)
+     */
+    public List<PortInfo> getPorts() {
+        return ports;
+    }
+
+    /**
+     * 查询指定端口，端口上有多个socket时返回第一个
+     */
+    public PortInfo getPort(int port) {
+        List<PortInfo> sockets = byPort.get(port);
+        return sockets != null ? sockets.get(0) : null;
+    }
+
+    /**
+     * 指定端口上的全部socket (只读)
+     */
+    public List<PortInfo> getPortsByPort(int port) {
+        return byPort.getOrDefault(port, Collections.<PortInfo>emptyList());
+    }
+
+    /**
+     * 指定进程的全部socket (只读)
+     */
+    public List<PortInfo> getPortsByPid(long pid) {
+        return byPid.getOrDefault(pid, Collections.<PortInfo>emptyList());
+    }
+
+    /**
+     * 指定进程类型的全部socket (只读)
+     */
+    public List<PortInfo> getPortsByProcessType(String processType) {
+        return byProcessType.getOrDefault(processType, Collections.<PortInfo>emptyList());
+    }
+
+    /**
+     * 按socket键查询
+     */
+    public PortInfo getSocket(SocketKey key) {
+        return socketMap.get(key);
+    }
+
+    /**
+     * 端口占用索引
+     */
+    public PortOccupancy getOccupancy() {
+        return occupancy;
+    }
+
+    /**
+     * 端口数量统计 (只读，构建快照时计算)
+     */
+    public Map<String, Integer> getStatistics() {
+        return statistics;
+    }
+
+    public int size() {
+        return ports.size();
+    }
+}
@@ -0,0 +1,115 @@
+package com.portmanager.web.model;
+
+/**
+ * 主动探测结果
+ * 对目标地址逐端口发起 TCP 连接，按连接结果分类，并与扫描快照对照:
+ * - unseen: 能连上但快照中没有对应监听 (其他用户的进程、容器转发等扫描器看不到的监听)
+ * - unreachable: 快照中有从该地址可达的监听 (通配地址或同一地址)，但连接被拒绝或超时
+ */
+public class ProbeResult {
+
+    private final String host;
+    private final int probed;
+    private final int[] open;
+    private final int refused;
+    private final int timedOut;
+    private final int failed;
+    private final long startTime;
+    private final long durationMs;
+    private final long snapshotVersion;
+    private final int[] confirmed;
+    private final int[] unseen;
+    private final int[] unreachable;
+
+    public ProbeResult(String host, int probed, int[] open, int refused, int timedOut, int failed,
+                       long startTime, long durationMs, long snapshotVersion,
+                       int[] confirmed, int[] unseen, int[] unreachable) {
+        this.host = host;
+        this.probed = probed;
+        this.open = open;
+        this.refused = refused;
+        this.timedOut = timedOut;
+        this.failed = failed;
+        this.startTime = startTime;
+        this.durationMs = durationMs;
+        this.snapshotVersion = snapshotVersion;
+        this.confirmed = confirmed;
+        this.unseen = unseen;
+        this.unreachable = unreachable;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * 探测的端口数
+     */
+    public int getProbed() {
+        return probed;
+    }
+
+    /**
+     * 接受连接的端口 (升序)
+     */
+    public int[] getOpen() {
+        return open;
+    }
+
+    /**
+     * 连接被拒绝的端口数
+     */
+    public int getRefused() {
+        return refused;
+    }
+
+    /**
+     * 超时未完成连接的端口数
+     */
+    public int getTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * 因其他错误 (如文件描述符不足) 未能探测的端口数
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    /**
+     * 对照的快照版本
+     */
+    public long getSnapshotVersion() {
+        return snapshotVersion;
+    }
+
+    /**
+     * 快照中原本没有、单独探测后确认并合并到快照的端口
+     */
+    public int[] getConfirmed() {
+        return confirmed;
+    }
+
+    /**
+     * 能连上但扫描器看不到监听的端口
+     */
+    public int[] getUnseen() {
+        return unseen;
+    }
+
+    /**
+     * 快照中有可达的监听但连不上的端口
+     */
+    public int[] getUnreachable() {
+        return unreachable;
+    }
+}
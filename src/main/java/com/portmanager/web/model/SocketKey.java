@@ -0,0 +1,75 @@
+package com.portmanager.web.model;
+
+import java.util.Objects;
+
+/**
+ * 监听socket的唯一键: (协议, 本地地址, 端口, PID)
+ * 同一端口上的 IPv4/IPv6、TCP/UDP 以及 SO_REUSEPORT 的多个工作进程各自是独立的socket，互不覆盖。
+ */
+public final class SocketKey {
+
+    private final String protocol;
+    private final String localAddress;
+    private final int port;
+    private final Long pid;
+    private final int hash;
+
+    public SocketKey(String protocol, String localAddress, int port, Long pid) {
+        this.protocol = protocol;
+        this.localAddress = localAddress;
+        this.port = port;
+        this.pid = pid;
+        this.hash = 31 * (31 * (31 * port + Objects.hashCode(pid)) + Objects.hashCode(protocol))
+                + Objects.hashCode(localAddress);
+    }
+
+    public static SocketKey of(PortInfo portInfo) {
+        return new SocketKey(portInfo.getProtocol(), portInfo.getLocalAddress(),
+                portInfo.getPort() != null ? portInfo.getPort() : 0, portInfo.getPid());
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public String getLocalAddress() {
+        return localAddress;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public Long getPid() {
+        return pid;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SocketKey)) {
+            return false;
+        }
+        SocketKey key = (SocketKey) o;
+        return port == key.port && hash == key.hash
+                && Objects.equals(pid, key.pid)
+                && Objects.equals(protocol, key.protocol)
+                && Objects.equals(localAddress, key.localAddress);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * 字符串形式，如 TCP/127.0.0.1:8080/1234，用作网页端的行标识
+     */
+    @Override
+    public String toString() {
+        String address = localAddress != null ? localAddress : String.valueOf(port);
+        return protocol + "/" + address + "/" + (pid != null ? pid : "-");
+    }
+}
@@ -0,0 +1,153 @@
+package com.portmanager.web.scanner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 识别结果缓存
+ * 以 (进程名, 命令行, 端口) 为键缓存端口类型、进程类型和开发进程标记，按LRU淘汰；
+ * 开发进程关键字重新加载后整体失效。
+ * 长期运行的进程在每次扫描中只需一次哈希查找；只有新出现或命令行变化的进程才重新识别。
+ * 命令行字符串来自 {@link ProcessMetadataCache}，同一进程在多次扫描间是同一个实例，比较时通常只需比较引用。
+ */
+@Component
+public class ClassificationCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ClassificationCache.class);
+
+    @Autowired
+    private PortTypeIdentifier portTypeIdentifier;
+
+    @Autowired
+    private DevProcessMatcher devProcessMatcher;
+
+    /**
+     * 最大缓存条目数
+     */
+    @Value("${port-manager.scan.classification-cache-size:4096}")
+    private int maxSize;
+
+    private Map<Key, PortTypeIdentifier.Classification> cache;
+
+    /**
+     * 缓存内容对应的开发进程关键字版本，关键字重新加载后整体失效
+     */
+    private long devGeneration;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        cache = new LinkedHashMap<Key, PortTypeIdentifier.Classification>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PortTypeIdentifier.Classification> eldest) {
+                if (size() > maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取识别结果，未命中时识别并缓存
+     */
+    public PortTypeIdentifier.Classification classify(int port, String processName, String commandLine) {
+        Key key = new Key(port, processName, commandLine);
+        long generation = devProcessMatcher.getGeneration();
+        synchronized (this) {
+            if (generation != devGeneration) {
+                cache.clear();
+                devGeneration = generation;
+            }
+            PortTypeIdentifier.Classification cached = cache.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        misses.incrementAndGet();
+        PortTypeIdentifier.Classification classification = portTypeIdentifier.classify(port, processName, commandLine)
+                .withDevelopmentProcess(devProcessMatcher.matches(processName, commandLine));
+        synchronized (this) {
+            // 识别期间关键字被重新加载时不写入旧结果
+            if (generation == devGeneration) {
+                cache.put(key, classification);
+            }
+        }
+        return classification;
+    }
+
+    /**
+     * 清空缓存 (识别规则变化时调用)
+     */
+    public synchronized void clear() {
+        cache.clear();
+        log.debug("Classification cache cleared");
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * 缓存键
+     */
+    private static final class Key {
+        private final int port;
+        private final String processName;
+        private final String commandLine;
+        private final int hash;
+
+        private Key(int port, String processName, String commandLine) {
+            this.port = port;
+            this.processName = processName;
+            this.commandLine = commandLine;
+            this.hash = 31 * (31 * port + Objects.hashCode(processName)) + Objects.hashCode(commandLine);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return port == key.port && hash == key.hash
+                    && Objects.equals(processName, key.processName)
+                    && Objects.equals(commandLine, key.commandLine);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
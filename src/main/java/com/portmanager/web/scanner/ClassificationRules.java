@@ -0,0 +1,247 @@
+package com.portmanager.web.scanner;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 进程类型/端口类型识别规则
+ * 规则按顺序匹配，第一个命中的规则决定类型，都未命中时为 OTHER。
+ * 配置在 port-manager.classifier 下的规则排在内置规则之前，
+ * 因此可以在外部配置中添加自研框架或覆盖内置识别结果，无需重新构建。
+ */
+@Component
+@ConfigurationProperties(prefix = "port-manager.classifier")
+public class ClassificationRules {
+
+    /**
+     * 是否启用内置规则
+     */
+    private boolean useDefaults = true;
+
+    /**
+     * 自定义进程类型规则
+     */
+    private List<Rule> processTypes = new ArrayList<>();
+
+    /**
+     * 自定义端口类型规则
+     */
+    private List<Rule> portTypes = new ArrayList<>();
+
+    /**
+     * 生效的进程类型规则 (自定义在前，内置在后)
+     */
+    public List<Rule> effectiveProcessTypes() {
+        List<Rule> rules = new ArrayList<>(processTypes);
+        if (useDefaults) {
+            rules.addAll(defaultProcessTypes());
+        }
+        return rules;
+    }
+
+    /**
+     * 生效的端口类型规则 (自定义在前，内置在后)
+     */
+    public List<Rule> effectivePortTypes() {
+        List<Rule> rules = new ArrayList<>(portTypes);
+        if (useDefaults) {
+            rules.addAll(defaultPortTypes());
+        }
+        return rules;
+    }
+
+    /**
+     * 内置进程类型规则
+     */
+    public static List<Rule> defaultProcessTypes() {
+        return Arrays.asList(
+                new Rule("JAVA")
+                        .nameEquals("java")
+                        .nameContains("java")
+                        .contains("spring", "tomcat", "jetty", ".jar"),
+                new Rule("NODE")
+                        .nameEquals("node")
+                        .nameContains("npm", "yarn", "pnpm")
+                        .contains("webpack", "vite", "next", "nuxt"),
+                new Rule("PYTHON")
+                        .nameEquals("python", "python3", "python2")
+                        .contains("django", "flask", "fastapi", "uvicorn", "gunicorn"),
+                new Rule("WEB_SERVER")
+                        .nameEquals("nginx", "httpd", "apache", "apache2")
+                        .nameContains("caddy", "lighttpd"),
+                new Rule("DATABASE")
+                        .nameEquals("mongod")
+                        .nameContains("mysql", "postgres", "redis", "mongo", "oracle", "sqlserver",
+                                "mariadb", "clickhouse", "elastic", "cassandra", "influx"),
+                new Rule("IDE")
+                        .nameEquals("code")
+                        .nameContains("idea", "intellij", "pycharm", "webstorm", "vscode", "eclipse",
+                                "netbeans", "sublime", "atom", "android studio"),
+                new Rule("BROWSER")
+                        .nameContains("chrome", "firefox", "safari", "edge", "opera", "brave"),
+                new Rule("SYSTEM")
+                        .nameEquals("systemd", "launchd", "init", "sshd", "cupsd", "cron", "systemd-resolved")
+                        .nameContains("kernel"));
+    }
+
+    /**
+     * 内置端口类型规则
+     */
+    public static List<Rule> defaultPortTypes() {
+        return Arrays.asList(
+                // 前端开发服务器及常见前端端口
+                new Rule("FRONTEND")
+                        .contains("node", "npm", "yarn", "webpack", "vite", "react", "vue", "angular",
+                                "next", "nuxt", "gatsby")
+                        .ports(3000, 3001, 4200, 5173, 8081, 9000, 9090),
+                // 各语言后端框架
+                new Rule("BACKEND")
+                        .requires("java")
+                        .contains("spring", "tomcat", "jar", "jetty"),
+                new Rule("BACKEND")
+                        .requires("python")
+                        .contains("django", "flask", "fastapi", "uvicorn", "gunicorn"),
+                new Rule("BACKEND")
+                        .requires("go")
+                        .contains("gin", "beego", "echo"),
+                new Rule("BACKEND")
+                        .requires("node")
+                        .contains("express", "koa", "nest", "fastify"),
+                // 常见后端端口
+                new Rule("BACKEND")
+                        .ports(8080, 8000, 8888, 9527, 7001, 7002, 5000, 80, 443),
+                // 数据库进程及常见数据库端口
+                new Rule("DATABASE")
+                        .contains("mysql", "postgres", "redis", "mongodb", "oracle", "sqlserver",
+                                "mariadb", "clickhouse", "elasticsearch")
+                        .ports(3306, 5432, 6379, 27017, 1521, 1433, 9200, 9300, 8086, 9042, 33060));
+    }
+
+    public boolean isUseDefaults() {
+        return useDefaults;
+    }
+
+    public void setUseDefaults(boolean useDefaults) {
+        this.useDefaults = useDefaults;
+    }
+
+    public List<Rule> getProcessTypes() {
+        return processTypes;
+    }
+
+    public void setProcessTypes(List<Rule> processTypes) {
+        this.processTypes = processTypes;
+    }
+
+    public List<Rule> getPortTypes() {
+        return portTypes;
+    }
+
+    public void setPortTypes(List<Rule> portTypes) {
+        this.portTypes = portTypes;
+    }
+
+    /**
+     * 单条识别规则
+     * 命中条件: requires 中的关键字全部出现，且满足以下任一项
+     * (name-equals、name-contains、contains、ports 均未配置时只看 requires):
+     * - name-equals: 进程名等于其中之一
+     * - name-contains: 进程名包含其中之一
+     * - contains: 进程名或命令行包含其中之一
+     * - ports: 端口号为其中之一
+     * 关键字均不区分大小写。
+     */
+    public static class Rule {
+        private String type;
+        private List<String> nameEquals = Collections.emptyList();
+        private List<String> nameContains = Collections.emptyList();
+        private List<String> contains = Collections.emptyList();
+        private List<String> requires = Collections.emptyList();
+        private List<Integer> ports = Collections.emptyList();
+
+        public Rule() {
+        }
+
+        public Rule(String type) {
+            this.type = type;
+        }
+
+        public Rule nameEquals(String... keywords) {
+            this.nameEquals = Arrays.asList(keywords);
+            return this;
+        }
+
+        public Rule nameContains(String... keywords) {
+            this.nameContains = Arrays.asList(keywords);
+            return this;
+        }
+
+        public Rule contains(String... keywords) {
+            this.contains = Arrays.asList(keywords);
+            return this;
+        }
+
+        public Rule requires(String... keywords) {
+            this.requires = Arrays.asList(keywords);
+            return this;
+        }
+
+        public Rule ports(Integer... ports) {
+            this.ports = Arrays.asList(ports);
+            return this;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public List<String> getNameEquals() {
+            return nameEquals;
+        }
+
+        public void setNameEquals(List<String> nameEquals) {
+            this.nameEquals = nameEquals;
+        }
+
+        public List<String> getNameContains() {
+            return nameContains;
+        }
+
+        public void setNameContains(List<String> nameContains) {
+            this.nameContains = nameContains;
+        }
+
+        public List<String> getContains() {
+            return contains;
+        }
+
+        public void setContains(List<String> contains) {
+            this.contains = contains;
+        }
+
+        public List<String> getRequires() {
+            return requires;
+        }
+
+        public void setRequires(List<String> requires) {
+            this.requires = requires;
+        }
+
+        public List<Integer> getPorts() {
+            return ports;
+        }
+
+        public void setPorts(List<Integer> ports) {
+            this.ports = ports;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.portmanager.web.scanner;
+
+/**
+ * 一次扫描中读到的 ESTABLISHED 连接
+ * 扫描器在读取socket表的同一遍中把每个连接记为一个 long: 高48位为连接指纹，低16位为本地端口。
+ * 指纹为 本地地址->远程地址 的哈希 (未被 accept 的连接在 /proc/net 中没有 inode，不能用 inode 区分)。
+ * 连接只存放在这个数组里，不创建对象。
+ * 非线程安全，每次扫描使用一个实例。
+ */
+final class ConnectionTally {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long[] entries = new long[256];
+    private int size;
+
+    /**
+     * 记录一个已建立的连接
+     *
+     * @param localPort   连接的本地端口 (入站连接即监听端口)
+     * @param fingerprint 连接存在期间不变的标识
+     */
+    void add(int localPort, long fingerprint) {
+        if (size == entries.length) {
+            long[] larger = new long[size * 2];
+            System.arraycopy(entries, 0, larger, 0, size);
+            entries = larger;
+        }
+        entries[size++] = (fingerprint << 16) | (localPort & 0xFFFF);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long[] entries() {
+        return entries;
+    }
+
+    static int port(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    /**
+     * 字节区间 [start, end) 的 FNV-1a 哈希
+     */
+    static long fingerprint(byte[] bytes, int start, int end) {
+        long hash = FNV_OFFSET;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ (bytes[i] & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    static long fingerprint(String text) {
+        return hash(FNV_OFFSET, text);
+    }
+
+    /**
+     * 本地地址和远程地址的组合哈希
+     */
+    static long fingerprint(String local, String remote) {
+        return hash((hash(FNV_OFFSET, local) ^ '>') * FNV_PRIME, remote);
+    }
+
+    private static long hash(long hash, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ (text.charAt(i) & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,93 @@
+package com.portmanager.web.scanner;
+
+import com.portmanager.web.model.PortInfo;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按监听端口汇总连接数和新建连接速率
+ * - 只统计本地端口为 TCP 监听端口的连接 (入站连接)，同一端口上的多个监听socket (IPv4/IPv6、多个工作进程) 显示端口的总数
+ * - 本次的连接 (升序去重) 与上次全量扫描的连接二分比较，不在其中的记为新建；两次扫描之间建立又关闭的连接不计入
+ * - 上次全量扫描的连接只保留一个升序 long 数组作为基准，计数数组按端口复用
+ */
+final class ConnectionTracker {
+
+    private static final int PORTS = 65536;
+
+    private final int[] established = new int[PORTS];
+    private final int[] opened = new int[PORTS];
+    private final long[] listening = new long[PORTS / 64];
+
+    /**
+     * 上次全量扫描中入站连接的 (指纹, 端口)，升序
+     */
+    private long[] baseline;
+    private long baselineTime;
+
+    /**
+     * 为 TCP 监听socket填写连接数和新建速率
+     *
+     * @param full 是否为全量扫描，全量扫描的结果作为下次比较的基准；单端口探测只填写不更新基准
+     */
+    synchronized void apply(ConnectionTally tally, List<PortInfo> listeners, long time, boolean full) {
+        for (PortInfo portInfo : listeners) {
+            if (isTcp(portInfo)) {
+                int port = portInfo.getPort();
+                listening[port >>> 6] |= 1L << port;
+            }
+        }
+
+        // 只保留入站连接，排序后相邻的重复项 (多个进程共享同一socket) 只计一次
+        long[] entries = tally.entries();
+        long[] inbound = new long[tally.size()];
+        int count = 0;
+        for (int i = 0; i < tally.size(); i++) {
+            int port = ConnectionTally.port(entries[i]);
+            if ((listening[port >>> 6] & (1L << port)) != 0) {
+                inbound[count++] = entries[i];
+            }
+        }
+        Arrays.sort(inbound, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique > 0 && inbound[unique - 1] == inbound[i]) {
+                continue;
+            }
+            long entry = inbound[i];
+            inbound[unique++] = entry;
+            int port = ConnectionTally.port(entry);
+            established[port]++;
+            if (baseline != null && Arrays.binarySearch(baseline, entry) < 0) {
+                opened[port]++;
+            }
+        }
+
+        double seconds = baseline != null ? Math.max(time - baselineTime, 1) / 1000.0 : 0;
+        for (PortInfo portInfo : listeners) {
+            if (!isTcp(portInfo)) {
+                continue;
+            }
+            int port = portInfo.getPort();
+            portInfo.setEstablishedConnections(established[port]);
+            portInfo.setNewConnectionRate(baseline != null ? Math.round(opened[port] / seconds * 100) / 100.0 : null);
+        }
+        for (PortInfo portInfo : listeners) {
+            if (isTcp(portInfo)) {
+                int port = portInfo.getPort();
+                established[port] = 0;
+                opened[port] = 0;
+                listening[port >>> 6] = 0;
+            }
+        }
+
+        if (full) {
+            baseline = Arrays.copyOf(inbound, unique);
+            baselineTime = time;
+        }
+    }
+
+    private static boolean isTcp(PortInfo portInfo) {
+        return portInfo.getPort() != null && "TCP".equalsIgnoreCase(portInfo.getProtocol());
+    }
+}
@@ -0,0 +1,100 @@
+package com.portmanager.web.scanner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * 开发进程判断
+ * 进程名或命令行包含任一关键字 (port-manager.scan.dev-process-keywords，不区分大小写) 即为开发进程。
+ * 关键字只在启动和重新加载时编译一次，匹配时不拼接、不转小写、不分配内存，找到第一个关键字即返回。
+ * 所有扫描器共用同一个实例。
+ */
+@Component
+public class DevProcessMatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(DevProcessMatcher.class);
+
+    @Value("${port-manager.scan.dev-process-keywords:idea,java,tace,claude,springboot}")
+    private String devProcessKeywords;
+
+    private volatile Compiled compiled;
+
+    /**
+     * 每次重新加载加1，依赖匹配结果的缓存据此失效
+     */
+    private volatile long generation;
+
+    @PostConstruct
+    public void init() {
+        reload(devProcessKeywords);
+    }
+
+    /**
+     * 判断是否为开发进程
+     */
+    public boolean matches(String processName, String commandLine) {
+        Compiled current = compiled;
+        if (current.keywords.isEmpty()) {
+            return false;
+        }
+
+        KeywordMatcher matcher = current.matcher;
+        int state = matcher.find(matcher.initialState(), processName != null ? processName : "");
+        if (state == KeywordMatcher.FOUND) {
+            return true;
+        }
+        state = matcher.find(state, " ");
+        if (state == KeywordMatcher.FOUND) {
+            return true;
+        }
+        return matcher.find(state, commandLine != null ? commandLine : "") == KeywordMatcher.FOUND;
+    }
+
+    /**
+     * 重新加载关键字 (逗号分隔)，无需重启即可生效
+     */
+    public synchronized void reload(String keywords) {
+        List<String> list = keywords == null ? Collections.emptyList() : Arrays.stream(keywords.split(","))
+                .map(String::trim)
+                .filter(keyword -> !keyword.isEmpty())
+                .map(keyword -> keyword.toLowerCase(Locale.ROOT))
+                .distinct()
+                .collect(Collectors.toList());
+        compiled = new Compiled(Collections.unmodifiableList(list), KeywordMatcher.compile(list));
+        generation++;
+        log.info("Dev process keywords loaded: {}", list);
+    }
+
+    /**
+     * 当前关键字
+     */
+    public List<String> getKeywords() {
+        return compiled.keywords;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * 关键字与编译结果一起替换，保证匹配时两者一致
+     */
+    private static final class Compiled {
+        private final List<String> keywords;
+        private final KeywordMatcher matcher;
+
+        private Compiled(List<String> keywords, KeywordMatcher matcher) {
+            this.keywords = keywords;
+            this.matcher = matcher;
+        }
+    }
+}
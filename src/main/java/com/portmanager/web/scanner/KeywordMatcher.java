@@ -0,0 +1,223 @@
+package com.portmanager.web.scanner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 多关键字匹配器 (Aho-Corasick)
+ * 构建时将所有关键字编译为一个确定性自动机，匹配时对文本只扫描一遍，
+ * 逐字符转为小写，不生成小写副本。
+ * 编译后不可变，可在多线程间共享。
+ */
+public final class KeywordMatcher {
+
+    /**
+     * {@link #find} 找到关键字时的返回值
+     */
+    public static final int FOUND = -1;
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final String[] keywords;
+
+    /**
+     * 字符 -> 字母表下标，0 表示不出现在任何关键字中的字符
+     * ASCII 字符直接查表，大写字母与对应小写字母同一下标
+     */
+    private final int[] asciiClass = new int[128];
+    private final Map<Character, Integer> otherClass = new HashMap<>();
+    private final int alphabetSize;
+
+    /**
+     * 状态转移表 transitions[state * alphabetSize + charClass]
+     */
+    private final int[] transitions;
+
+    /**
+     * 到达状态时匹配到的关键字下标 (含失败链上的)
+     */
+    private final int[][] outputs;
+
+    private KeywordMatcher(List<String> keywordList) {
+        this.keywords = new String[keywordList.size()];
+        int classes = 1;
+        for (int i = 0; i < keywords.length; i++) {
+            String keyword = keywordList.get(i).toLowerCase(Locale.ROOT);
+            if (keyword.isEmpty()) {
+                throw new IllegalArgumentException("Keyword must not be empty");
+            }
+            keywords[i] = keyword;
+            for (int j = 0; j < keyword.length(); j++) {
+                char c = keyword.charAt(j);
+                if (c < 128) {
+                    if (asciiClass[c] == 0) {
+                        asciiClass[c] = classes++;
+                    }
+                } else if (!otherClass.containsKey(c)) {
+                    otherClass.put(c, classes++);
+                }
+            }
+        }
+        this.alphabetSize = classes;
+        for (char c = 'A'; c <= 'Z'; c++) {
+            asciiClass[c] = asciiClass[Character.toLowerCase(c)];
+        }
+
+        // 构建字典树
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> trieOutputs = new ArrayList<>();
+        trie.add(new int[alphabetSize]);
+        trieOutputs.add(new ArrayList<>());
+        for (int i = 0; i < keywords.length; i++) {
+            int state = 0;
+            for (int j = 0; j < keywords[i].length(); j++) {
+                int c = charClass(keywords[i].charAt(j));
+                if (trie.get(state)[c] == 0) {
+                    trie.get(state)[c] = trie.size();
+                    trie.add(new int[alphabetSize]);
+                    trieOutputs.add(new ArrayList<>());
+                }
+                state = trie.get(state)[c];
+            }
+            trieOutputs.get(state).add(i);
+        }
+
+        // 按广度优先计算失败链，并把缺失的转移补全为确定性自动机
+        int states = trie.size();
+        int[] fail = new int[states];
+        this.transitions = new int[states * alphabetSize];
+        this.outputs = new int[states][];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < alphabetSize; c++) {
+            int next = trie.get(0)[c];
+            transitions[c] = next;
+            if (next != 0) {
+                queue.add(next);
+            }
+        }
+        outputs[0] = NO_OUTPUT;
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Integer> out = trieOutputs.get(state);
+            if (outputs[fail[state]].length > 0) {
+                for (int id : outputs[fail[state]]) {
+                    out.add(id);
+                }
+            }
+            outputs[state] = toArray(out);
+
+            for (int c = 0; c < alphabetSize; c++) {
+                int next = trie.get(state)[c];
+                if (next != 0) {
+                    fail[next] = transitions[fail[state] * alphabetSize + c];
+                    transitions[state * alphabetSize + c] = next;
+                    queue.add(next);
+                } else {
+                    transitions[state * alphabetSize + c] = transitions[fail[state] * alphabetSize + c];
+                }
+            }
+        }
+    }
+
+    /**
+     * 编译关键字 (不区分大小写)
+     * 关键字的下标即其在列表中的位置
+     */
+    public static KeywordMatcher compile(List<String> keywords) {
+        return new KeywordMatcher(keywords);
+    }
+
+    /**
+     * 初始状态
+     */
+    public int initialState() {
+        return 0;
+    }
+
+    /**
+     * 读入一个字符后的状态
+     */
+    public int next(int state, char c) {
+        return transitions[state * alphabetSize + charClass(c)];
+    }
+
+    /**
+     * 读入一段文本，对其中出现的每个关键字在 hits 中置上 flag
+     *
+     * @return 读完后的状态，可继续读入后续文本
+     */
+    public int scan(int state, CharSequence text, byte[] hits, byte flag) {
+        int[] transitions = this.transitions;
+        int[] asciiClass = this.asciiClass;
+        int alphabetSize = this.alphabetSize;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            state = transitions[state * alphabetSize + (c < 128 ? asciiClass[c] : charClass(c))];
+            int[] out = outputs[state];
+            if (out.length > 0) {
+                for (int id : out) {
+                    hits[id] |= flag;
+                }
+            }
+        }
+        return state;
+    }
+
+    /**
+     * 读入一段文本，遇到第一个关键字即停止
+     *
+     * @return 读完后的状态，可继续读入后续文本；找到关键字时返回 {@link #FOUND}
+     */
+    public int find(int state, CharSequence text) {
+        int[] transitions = this.transitions;
+        int[] asciiClass = this.asciiClass;
+        int alphabetSize = this.alphabetSize;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            state = transitions[state * alphabetSize + (c < 128 ? asciiClass[c] : charClass(c))];
+            if (outputs[state].length > 0) {
+                return FOUND;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * 在当前状态结束的关键字下标，无匹配时为空数组
+     */
+    public int[] matches(int state) {
+        return outputs[state];
+    }
+
+    public int keywordCount() {
+        return keywords.length;
+    }
+
+    public int keywordLength(int id) {
+        return keywords[id].length();
+    }
+
+    private int charClass(char c) {
+        if (c < 128) {
+            return asciiClass[c];
+        }
+        Integer charClass = otherClass.get(Character.toLowerCase(c));
+        return charClass != null ? charClass : 0;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        if (list.isEmpty()) {
+            return NO_OUTPUT;
+        }
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+}
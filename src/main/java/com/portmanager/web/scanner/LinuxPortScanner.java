@@ -0,0 +1,440 @@
+package com.portmanager.web.scanner;
+
+import com.portmanager.web.model.PortInfo;
+import com.portmanager.web.model.ProcessInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Linux系统端口扫描器
+ * 直接读取 /proc/net/{tcp,tcp6,udp,udp6} 并在进程内完成 socket inode -> PID 映射，不再fork lsof
+ * 读取 TCP 表时同时统计 ESTABLISHED 连接，得出各监听端口的连接数和新建速率
+ */
+@Component
+public class LinuxPortScanner implements PortScanner {
+
+    private static final Logger log = LoggerFactory.getLogger(LinuxPortScanner.class);
+
+    private static final String PROC = "/proc";
+
+    /**
+     * /proc/net/tcp 中的 TCP_LISTEN 状态
+     */
+    private static final String TCP_LISTEN = "0A";
+
+    /**
+     * /proc/net/tcp 中的 TCP_ESTABLISHED 状态
+     */
+    private static final String TCP_ESTABLISHED = "01";
+
+    /**
+     * /proc/net/udp 中的 TCP_CLOSE 状态 (已绑定但未连接的UDP socket)
+     */
+    private static final String UDP_UNCONNECTED = "07";
+
+    private static final String SOCKET_LINK_PREFIX = "socket:[";
+
+    @Autowired
+    private ProcessMetadataCache processMetadataCache;
+
+    @Autowired
+    private ClassificationCache classificationCache;
+
+    @Autowired
+    private ScanMetrics scanMetrics;
+
+    /**
+     * UID -> 用户名缓存 (/etc/passwd)
+     */
+    private final Map<Integer, String> userNameCache = new ConcurrentHashMap<>();
+
+    /**
+     * 上次全量扫描得到的 socket inode -> PID，解析所属进程时先检查这些进程
+     */
+    private volatile Map<Long, Long> knownOwners = new HashMap<>();
+
+    private final ConnectionTracker connectionTracker = new ConnectionTracker();
+
+    /**
+     * 当前系统是否提供 /proc/net 套接字表
+     */
+    public static boolean isSupported() {
+        return new File(PROC + "/net/tcp").canRead();
+    }
+
+    @Override
+    public List<PortInfo> scanPorts() {
+        ConnectionTally connections = new ConnectionTally();
+        List<SocketEntry> sockets = readSocketTables(connections);
+
+        Map<Long, Long> inodeToPid = new HashMap<>();
+        List<PortInfo> portList = toPortInfoList(sockets, inodeToPid);
+        inodeToPid.values().removeIf(pid -> pid == null);
+        knownOwners = inodeToPid;
+        connectionTracker.apply(connections, portList, System.currentTimeMillis(), true);
+        log.debug("Read {} listening sockets and {} connections from /proc/net, found {} ports",
+                sockets.size(), connections.size(), portList.size());
+        return portList;
+    }
+
+    @Override
+    public List<PortInfo> scanPort(int port) {
+        ConnectionTally connections = new ConnectionTally();
+        List<SocketEntry> sockets = readSocketTables(connections);
+
+        sockets.removeIf(socket -> socket.port != port);
+        if (sockets.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 端口仍由原进程监听时只需检查该进程的fd，无需遍历全部进程
+        List<PortInfo> portList = toPortInfoList(sockets, new HashMap<>());
+        connectionTracker.apply(connections, portList, System.currentTimeMillis(), false);
+        return portList;
+    }
+
+    /**
+     * 读取全部套接字表中的监听socket
+     *
+     * @param connections 输出: TCP 表中的已建立连接
+     */
+    private List<SocketEntry> readSocketTables(ConnectionTally connections) {
+        long start = System.nanoTime();
+        List<SocketEntry> sockets = new ArrayList<>();
+        readSocketTable(Paths.get(PROC, "net", "tcp"), "TCP", TCP_LISTEN, sockets, connections);
+        readSocketTable(Paths.get(PROC, "net", "tcp6"), "TCP", TCP_LISTEN, sockets, connections);
+        readSocketTable(Paths.get(PROC, "net", "udp"), "UDP", UDP_UNCONNECTED, sockets, null);
+        readSocketTable(Paths.get(PROC, "net", "udp6"), "UDP", UDP_UNCONNECTED, sockets, null);
+        scanMetrics.recordPhase(ScanMetrics.PHASE_PARSE, System.nanoTime() - start);
+        return sockets;
+    }
+
+    /**
+     * 将socket条目映射到进程并组装端口信息
+     *
+     * @param inodeToPid 输出: socket inode -> PID (未找到所属进程时为null)
+     */
+    private List<PortInfo> toPortInfoList(List<SocketEntry> sockets, Map<Long, Long> inodeToPid) {
+        long start = System.nanoTime();
+        for (SocketEntry socket : sockets) {
+            inodeToPid.put(socket.inode, null);
+        }
+        resolveSocketOwners(inodeToPid);
+
+        Set<Long> pids = new HashSet<>(inodeToPid.values());
+        pids.remove(null);
+        Map<Long, ProcessInfo> processes = processMetadataCache.resolve(pids);
+        long classifyStart = System.nanoTime();
+        scanMetrics.recordPhase(ScanMetrics.PHASE_ENRICHMENT, classifyStart - start);
+
+        List<PortInfo> portList = new ArrayList<>(sockets.size());
+        for (SocketEntry socket : sockets) {
+            Long pid = inodeToPid.get(socket.inode);
+            String processName = "Unknown";
+            String commandLine = "";
+            ProcessInfo process = pid != null ? processes.get(pid) : null;
+            if (process != null) {
+                processName = process.getProcessName();
+                commandLine = process.getCommandLine();
+            }
+
+            PortTypeIdentifier.Classification classification =
+                    classificationCache.classify(socket.port, processName, commandLine);
+
+            portList.add(PortInfo.builder()
+                    .port(socket.port)
+                    .protocol(socket.protocol)
+                    .status("LISTENING")
+                    .pid(pid)
+                    .processName(processName)
+                    .commandLine(commandLine)
+                    .isDevelopmentProcess(classification.getDevelopmentProcess())
+                    .user(getUserName(socket.uid))
+                    .localAddress(socket.address + ":" + socket.port)
+                    .portType(classification.getPortType())
+                    .processType(classification.getProcessType())
+                    .build());
+        }
+        scanMetrics.recordPhase(ScanMetrics.PHASE_CLASSIFICATION, System.nanoTime() - classifyStart);
+        return portList;
+    }
+
+    /**
+     * 读取一张 /proc/net 套接字表
+     * 示例格式: 0: 00000000:1F90 00000000:0000 0A 00000000:00000000 00:00000000 00000000  1000        0 123456 1 ...
+     *
+     * @param connections 不为null时记录 ESTABLISHED 连接
+     */
+    void readSocketTable(Path path, String protocol, String state, List<SocketEntry> sockets,
+                         ConnectionTally connections) {
+        if (!Files.isReadable(path)) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            // 跳过表头
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                SocketEntry socket = parseSocketLine(line, protocol, state, connections);
+                if (socket != null) {
+                    sockets.add(socket);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to read {}: {}", path, e.getMessage());
+        }
+    }
+
+    private SocketEntry parseSocketLine(String line, String protocol, String state, ConnectionTally connections) {
+        try {
+            String[] parts = line.trim().split("\\s+");
+            if (parts.length < 10) {
+                return null;
+            }
+            boolean listening = state.equals(parts[3]);
+            if (!listening && (connections == null || !TCP_ESTABLISHED.equals(parts[3]))) {
+                return null;
+            }
+
+            String local = parts[1];
+            int colon = local.indexOf(':');
+            if (colon < 0) {
+                return null;
+            }
+            if (!listening) {
+                connections.add(Integer.parseInt(local.substring(colon + 1), 16),
+                        ConnectionTally.fingerprint(local, parts[2]));
+                return null;
+            }
+
+            SocketEntry socket = new SocketEntry();
+            socket.protocol = protocol;
+            socket.address = formatAddress(local.substring(0, colon));
+            socket.port = Integer.parseInt(local.substring(colon + 1), 16);
+            socket.uid = Integer.parseInt(parts[7]);
+            socket.inode = Long.parseLong(parts[9]);
+            return socket;
+        } catch (Exception e) {
+            log.warn("Failed to parse socket line: {}", line, e);
+            scanMetrics.parseFailures(1);
+            return null;
+        }
+    }
+
+    /**
+     * 遍历 /proc/[pid]/fd，将socket inode映射到所属PID
+     * 先检查上次扫描时拥有这些inode的进程，仍有未找到的inode时再遍历全部进程；全部找到后立即停止
+     */
+    private void resolveSocketOwners(Map<Long, Long> inodeToPid) {
+        int remaining = inodeToPid.size();
+        if (remaining == 0) {
+            return;
+        }
+
+        Map<Long, Long> owners = knownOwners;
+        Set<Long> hintPids = new HashSet<>();
+        for (Long inode : inodeToPid.keySet()) {
+            Long pid = owners.get(inode);
+            if (pid != null) {
+                hintPids.add(pid);
+            }
+        }
+        for (Long pid : hintPids) {
+            remaining = resolveFds(Paths.get(PROC, pid.toString()), pid, inodeToPid, remaining);
+            if (remaining == 0) {
+                return;
+            }
+        }
+
+        try (DirectoryStream<Path> procDirs = Files.newDirectoryStream(Paths.get(PROC))) {
+            for (Path procDir : procDirs) {
+                Long pid = parsePid(procDir.getFileName().toString());
+                if (pid == null || hintPids.contains(pid)) {
+                    continue;
+                }
+
+                remaining = resolveFds(procDir, pid, inodeToPid, remaining);
+                if (remaining == 0) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to list {}: {}", PROC, e.getMessage());
+        }
+    }
+
+    /**
+     * 检查一个进程的fd
+     *
+     * @return 仍未找到所属进程的inode数
+     */
+    private int resolveFds(Path procDir, Long pid, Map<Long, Long> inodeToPid, int remaining) {
+        try (DirectoryStream<Path> fds = Files.newDirectoryStream(procDir.resolve("fd"))) {
+            for (Path fd : fds) {
+                Long inode = readSocketInode(fd);
+                if (inode != null && inodeToPid.containsKey(inode) && inodeToPid.get(inode) == null) {
+                    inodeToPid.put(inode, pid);
+                    if (--remaining == 0) {
+                        return 0;
+                    }
+                }
+            }
+        } catch (IOException | SecurityException e) {
+            // 无权限访问其他用户的进程，或进程已退出
+        }
+        return remaining;
+    }
+
+    private Long readSocketInode(Path fd) {
+        try {
+            String target = Files.readSymbolicLink(fd).toString();
+            if (target.startsWith(SOCKET_LINK_PREFIX) && target.endsWith("]")) {
+                return Long.parseLong(target.substring(SOCKET_LINK_PREFIX.length(), target.length() - 1));
+            }
+        } catch (IOException | NumberFormatException e) {
+            // fd已关闭
+        }
+        return null;
+    }
+
+    private Long parsePid(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return null;
+            }
+        }
+        return name.isEmpty() ? null : Long.parseLong(name);
+    }
+
+    /**
+     * UID转用户名 (解析 /etc/passwd，结果缓存)
+     */
+    private String getUserName(int uid) {
+        if (userNameCache.isEmpty()) {
+            try {
+                for (String line : Files.readAllLines(Paths.get("/etc/passwd"), StandardCharsets.UTF_8)) {
+                    String[] parts = line.split(":");
+                    if (parts.length >= 3) {
+                        try {
+                            userNameCache.putIfAbsent(Integer.parseInt(parts[2]), parts[0]);
+                        } catch (NumberFormatException e) {
+                            // 忽略格式错误的行
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("Failed to read /etc/passwd: {}", e.getMessage());
+            }
+        }
+        return userNameCache.getOrDefault(uid, String.valueOf(uid));
+    }
+
+    /**
+     * 将 /proc/net 中的十六进制地址转为 lsof 风格的文本
+     * IPv4: 0100007F -> 127.0.0.1; 通配地址 -> * (IPv6 为 [::]，与同端口的 IPv4 socket 区分)
+     */
+    static String formatAddress(String hex) {
+        int words = hex.length() / 8;
+        byte[] bytes = new byte[words * 4];
+        boolean wildcard = true;
+        // 每个32位字按主机字节序(小端)存储
+        for (int w = 0; w < words; w++) {
+            for (int b = 0; b < 4; b++) {
+                int offset = w * 8 + (3 - b) * 2;
+                bytes[w * 4 + b] = (byte) Integer.parseInt(hex.substring(offset, offset + 2), 16);
+                wildcard &= bytes[w * 4 + b] == 0;
+            }
+        }
+
+        if (wildcard) {
+            return bytes.length == 4 ? "*" : "[::]";
+        }
+        if (bytes.length == 4) {
+            return formatIpv4(bytes, 0);
+        }
+        if (isIpv4Mapped(bytes)) {
+            return formatIpv4(bytes, 12);
+        }
+        return "[" + formatIpv6(bytes) + "]";
+    }
+
+    private static String formatIpv4(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) + "." + (bytes[offset + 1] & 0xFF) + "."
+                + (bytes[offset + 2] & 0xFF) + "." + (bytes[offset + 3] & 0xFF);
+    }
+
+    private static boolean isIpv4Mapped(byte[] bytes) {
+        for (int i = 0; i < 10; i++) {
+            if (bytes[i] != 0) {
+                return false;
+            }
+        }
+        return bytes[10] == (byte) 0xFF && bytes[11] == (byte) 0xFF;
+    }
+
+    /**
+     * IPv6地址文本，最长的连续0组压缩为 ::
+     */
+    private static String formatIpv6(byte[] bytes) {
+        int[] groups = new int[8];
+        for (int i = 0; i < 8; i++) {
+            groups[i] = ((bytes[i * 2] & 0xFF) << 8) | (bytes[i * 2 + 1] & 0xFF);
+        }
+
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int i = 0; i < 8; ) {
+            int j = i;
+            while (j < 8 && groups[j] == 0) {
+                j++;
+            }
+            if (j - i > bestLength) {
+                bestStart = i;
+                bestLength = j - i;
+            }
+            i = j == i ? i + 1 : j;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            if (i == bestStart) {
+                sb.append("::");
+                i += bestLength - 1;
+                continue;
+            }
+            if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ':') {
+                sb.append(':');
+            }
+            sb.append(Integer.toHexString(groups[i]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * /proc/net 中的一条监听socket
+     */
+    static class SocketEntry {
+        String protocol;
+        String address;
+        int port;
+        int uid;
+        long inode;
+    }
+}
@@ -0,0 +1,266 @@
+package com.portmanager.web.scanner;
+
+import com.portmanager.web.model.PortInfo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * lsof 输出的流式解析器
+ * 直接在可复用的字节缓冲区上按下标切分字段，只为需要的字段创建字符串，
+ * 不生成中间行字符串、split 数组或正则 Matcher。
+ * 示例格式: java    12345 user  123u  IPv4 0x1234      0t0  TCP *:8080 (LISTEN)
+ * 已建立的连接 (NAME 为 本地->远程) 只记入 {@link ConnectionTally}，不生成端口信息。
+ * 非线程安全，每次扫描使用一个实例。
+ */
+public final class LsofOutputParser {
+
+    private static final int FIELD_COMMAND = 0;
+    private static final int FIELD_PID = 1;
+    private static final int FIELD_USER = 2;
+    private static final int FIELD_TYPE = 4;
+    private static final int FIELD_NODE = 7;
+    private static final int FIELD_NAME = 8;
+    private static final int FIELD_COUNT = 9;
+
+    private static final byte[] TCP = {'T', 'C', 'P'};
+    private static final byte[] UDP = {'U', 'D', 'P'};
+    private static final byte[] IPV6 = {'I', 'P', 'v', '6'};
+
+    private byte[] buffer;
+    private final int[] fieldStart = new int[FIELD_COUNT];
+    private final int[] fieldEnd = new int[FIELD_COUNT];
+
+    /**
+     * 同一进程的多个socket通常相邻，复用上一行的进程名和用户名字符串
+     */
+    private final CachedField processName = new CachedField();
+    private final CachedField user = new CachedField();
+
+    private final ConnectionTally connections;
+
+    public LsofOutputParser() {
+        this(8192);
+    }
+
+    public LsofOutputParser(int bufferSize) {
+        this(bufferSize, null);
+    }
+
+    /**
+     * @param connections 记录已建立连接，为null时忽略连接行
+     */
+    LsofOutputParser(int bufferSize, ConnectionTally connections) {
+        this.buffer = new byte[bufferSize];
+        this.connections = connections;
+    }
+
+    /**
+     * 解析整个输出流
+     *
+     * @param in  lsof 输出
+     * @param out 解析出的端口 (未填充命令行和类型)
+     * @return 读取的行数
+     */
+    public int parse(InputStream in, List<PortInfo> out) throws IOException {
+        int length = 0;
+        int lines = 0;
+        int scanFrom = 0;
+        int n;
+
+        while ((n = in.read(buffer, length, buffer.length - length)) != -1) {
+            length += n;
+
+            int lineStart = 0;
+            for (int i = scanFrom; i < length; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                    PortInfo portInfo = parseLine(buffer, lineStart, i);
+                    if (portInfo != null) {
+                        out.add(portInfo);
+                    }
+                    lineStart = i + 1;
+                }
+            }
+
+            // 未完成的行移到缓冲区开头，缓冲区放不下一整行时扩容
+            int remaining = length - lineStart;
+            if (lineStart > 0) {
+                System.arraycopy(buffer, lineStart, buffer, 0, remaining);
+            } else if (remaining == buffer.length) {
+                byte[] larger = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, larger, 0, remaining);
+                buffer = larger;
+            }
+            length = remaining;
+            scanFrom = remaining;
+        }
+
+        if (length > 0) {
+            lines++;
+            PortInfo portInfo = parseLine(buffer, 0, length);
+            if (portInfo != null) {
+                out.add(portInfo);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * 解析一行 [start, end)
+     *
+     * @return 端口信息，无法解析(表头、字段不足等)时返回null
+     */
+    public PortInfo parseLine(byte[] line, int start, int end) {
+        int fields = 0;
+        int i = start;
+        while (fields < FIELD_COUNT) {
+            while (i < end && isWhitespace(line[i])) {
+                i++;
+            }
+            if (i >= end) {
+                return null;
+            }
+            fieldStart[fields] = i;
+            while (i < end && !isWhitespace(line[i])) {
+                i++;
+            }
+            fieldEnd[fields] = i;
+            fields++;
+        }
+
+        long pid = parseLong(line, fieldStart[FIELD_PID], fieldEnd[FIELD_PID]);
+        if (pid < 0) {
+            return null;
+        }
+
+        // 本地地址结束于 "->" (已建立的连接) 或字段结尾，端口为最后一个 ':' 之后的数字
+        int nameStart = fieldStart[FIELD_NAME];
+        int nameEnd = fieldEnd[FIELD_NAME];
+        int localEnd = nameEnd;
+        for (int j = nameStart; j + 1 < nameEnd; j++) {
+            if (line[j] == '-' && line[j + 1] == '>') {
+                localEnd = j;
+                break;
+            }
+        }
+        int colon = -1;
+        for (int j = localEnd - 1; j >= nameStart; j--) {
+            if (line[j] == ':') {
+                colon = j;
+                break;
+            }
+        }
+        if (colon < 0) {
+            return null;
+        }
+        long port = parseLong(line, colon + 1, localEnd);
+        if (port < 0 || port > 65535) {
+            return null;
+        }
+        if (localEnd < nameEnd) {
+            if (connections != null) {
+                connections.add((int) port, ConnectionTally.fingerprint(line, nameStart, nameEnd));
+            }
+            return null;
+        }
+
+        return PortInfo.builder()
+                .port((int) port)
+                .protocol(protocol(line, fieldStart[FIELD_NODE], fieldEnd[FIELD_NODE]))
+                .status("LISTENING")
+                .pid(pid)
+                .processName(processName.get(line, fieldStart[FIELD_COMMAND], fieldEnd[FIELD_COMMAND]))
+                .user(user.get(line, fieldStart[FIELD_USER], fieldEnd[FIELD_USER]))
+                .localAddress(localAddress(line, nameStart, nameEnd))
+                .build();
+    }
+
+    /**
+     * 本地地址字段原样保留，IPv6 通配地址 "*" 改为 "[::]"，与同端口的 IPv4 socket 区分
+     */
+    private String localAddress(byte[] line, int nameStart, int nameEnd) {
+        if (line[nameStart] == '*' && rangeEquals(line, fieldStart[FIELD_TYPE], fieldEnd[FIELD_TYPE], IPV6)) {
+            return "[::]" + new String(line, nameStart + 1, nameEnd - nameStart - 1, StandardCharsets.UTF_8);
+        }
+        return new String(line, nameStart, nameEnd - nameStart, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    /**
+     * 解析非负十进制数，含非数字字符时返回-1
+     */
+    private static long parseLong(byte[] bytes, int start, int end) {
+        if (start >= end || end - start > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static String protocol(byte[] bytes, int start, int end) {
+        if (rangeEquals(bytes, start, end, TCP)) {
+            return "TCP";
+        }
+        if (rangeEquals(bytes, start, end, UDP)) {
+            return "UDP";
+        }
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private static boolean rangeEquals(byte[] bytes, int start, int end, byte[] expected) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (bytes[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 记住上一次的字段内容，相同时复用字符串
+     */
+    private static final class CachedField {
+        private byte[] bytes = new byte[64];
+        private int length = -1;
+        private String value;
+
+        String get(byte[] line, int start, int end) {
+            int len = end - start;
+            if (len == length && regionEquals(line, start)) {
+                return value;
+            }
+            if (bytes.length < len) {
+                bytes = new byte[len];
+            }
+            System.arraycopy(line, start, bytes, 0, len);
+            length = len;
+            value = new String(line, start, len, StandardCharsets.UTF_8);
+            return value;
+        }
+
+        private boolean regionEquals(byte[] line, int start) {
+            for (int i = 0; i < length; i++) {
+                if (line[start + i] != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
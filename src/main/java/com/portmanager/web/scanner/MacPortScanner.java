@@ -1,63 +1,71 @@
 package com.portmanager.web.scanner;
 
 import com.portmanager.web.model.PortInfo;
+import com.portmanager.web.model.ProcessInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Mac系统端口扫描器
- * 使用lsof命令扫描端口
+ * 使用lsof命令扫描端口，同一次输出中的 ESTABLISHED 连接用于统计各监听端口的连接数
  */
 @Component
 public class MacPortScanner implements PortScanner {
 
     private static final Logger log = LoggerFactory.getLogger(MacPortScanner.class);
 
-    @Value("${port-manager.scan.dev-process-keywords:idea,java,tace,claude,springboot}")
-    private String devProcessKeywords;
+    @Autowired
+    private ProcessMetadataCache processMetadataCache;
 
-    private static final Pattern PORT_PATTERN = Pattern.compile(":(\\d+)");
+    @Autowired
+    private ClassificationCache classificationCache;
+
+    @Autowired
+    private ScanMetrics scanMetrics;
+
+    private final ConnectionTracker connectionTracker = new ConnectionTracker();
 
     @Override
     public List<PortInfo> scanPorts() {
         List<PortInfo> portList = new ArrayList<>();
 
         try {
-            // 执行lsof命令: lsof -i -P -n | grep LISTEN
-            ProcessBuilder pb = new ProcessBuilder("sh", "-c", "lsof -i -P -n | grep LISTEN");
+            // 执行lsof命令: lsof -i -P -n | grep -E 'LISTEN|ESTABLISHED'
+            long start = System.nanoTime();
+            ProcessBuilder pb = new ProcessBuilder("sh", "-c", "lsof -i -P -n | grep -E 'LISTEN|ESTABLISHED'");
             pb.redirectErrorStream(true); // 合并错误流和输出流
             Process process = pb.start();
-
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()))) {
-                String line;
-                int lineCount = 0;
-                while ((line = reader.readLine()) != null) {
-                    lineCount++;
-                    log.debug("lsof output line {}: {}", lineCount, line);
-                    PortInfo portInfo = parseLsofLine(line);
-                    if (portInfo != null) {
-                        portList.add(portInfo);
-                        log.debug("Parsed port: {}", portInfo.getPort());
-                    }
-                }
-                log.info("Scanned {} lines, found {} ports", lineCount, portList.size());
+            scanMetrics.forked();
+
+            // 边读边解析，parse 阶段包含等待 lsof 输出的时间
+            long parseStart = System.nanoTime();
+            ConnectionTally connections = new ConnectionTally();
+            try (InputStream in = process.getInputStream()) {
+                int lineCount = new LsofOutputParser(8192, connections).parse(in, portList);
+                scanMetrics.parseFailures(lineCount - portList.size() - connections.size());
+                log.debug("Scanned {} lines, found {} ports and {} connections",
+                        lineCount, portList.size(), connections.size());
             }
+            long parseEnd = System.nanoTime();
 
             int exitCode = process.waitFor();
             if (exitCode != 0) {
                 log.warn("lsof command exited with code: {}", exitCode);
             }
+            scanMetrics.recordPhase(ScanMetrics.PHASE_PARSE, parseEnd - parseStart);
+            scanMetrics.recordPhase(ScanMetrics.PHASE_EXEC, (parseStart - start) + (System.nanoTime() - parseEnd));
+
+            enrich(portList);
+            connectionTracker.apply(connections, portList, System.currentTimeMillis(), true);
         } catch (Exception e) {
             log.error("Failed to scan ports on Mac: {}", e.getMessage(), e);
         }
@@ -66,111 +74,57 @@ public class MacPortScanner implements PortScanner {
     }
 
     @Override
-    public PortInfo scanPort(int port) {
+    public List<PortInfo> scanPort(int port) {
+        List<PortInfo> portList = new ArrayList<>(2);
         try {
-            // 扫描指定端口: lsof -i :{port} -P -n
-            ProcessBuilder pb = new ProcessBuilder("sh", "-c",
-                    String.format("lsof -i :%d -P -n | grep LISTEN", port));
+            // 直接执行 lsof 并由其按端口和状态过滤，不经过 sh 和 grep: lsof -nP -iTCP:{port} -sTCP:LISTEN,ESTABLISHED
+            ProcessBuilder pb = new ProcessBuilder("lsof", "-nP", "-iTCP:" + port, "-sTCP:LISTEN,ESTABLISHED");
             Process process = pb.start();
+            scanMetrics.forked();
 
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()))) {
-                String line = reader.readLine();
-                if (line != null) {
-                    return parseLsofLine(line);
-                }
+            ConnectionTally connections = new ConnectionTally();
+            try (InputStream in = process.getInputStream()) {
+                new LsofOutputParser(1024, connections).parse(in, portList);
             }
-
+            // 没有匹配的socket时 lsof 以1退出
             process.waitFor();
+
+            portList.removeIf(portInfo -> portInfo.getPort() != port);
+            enrich(portList);
+            connectionTracker.apply(connections, portList, System.currentTimeMillis(), false);
         } catch (Exception e) {
             log.error("Failed to scan port {} on Mac: {}", port, e.getMessage());
         }
 
-        return null;
-    }
-
-    /**
-     * 解析lsof命令输出的一行
-     * 示例格式: java    12345 user  123u  IPv4 0x1234      0t0  TCP *:8080 (LISTEN)
-     */
-    private PortInfo parseLsofLine(String line) {
-        try {
-            String[] parts = line.trim().split("\\s+");
-            if (parts.length < 9) {
-                return null;
-            }
-
-            String processName = parts[0];
-            Long pid = Long.parseLong(parts[1]);
-            String user = parts[2];
-            String protocol = parts[7]; // TCP or UDP
-            String address = parts[8]; // *:8080
-
-            // 提取端口号
-            Matcher matcher = PORT_PATTERN.matcher(address);
-            if (!matcher.find()) {
-                return null;
-            }
-            int port = Integer.parseInt(matcher.group(1));
-
-            // 获取完整命令行
-            String commandLine = getProcessCommandLine(pid);
-
-            // 识别端口类型
-            String portType = PortTypeIdentifier.identifyPortType(port, processName, commandLine);
-
-            // 识别进程类型
-            String processType = PortTypeIdentifier.identifyProcessType(processName, commandLine);
-
-            return PortInfo.builder()
-                    .port(port)
-                    .protocol(protocol)
-                    .status("LISTENING")
-                    .pid(pid)
-                    .processName(processName)
-                    .commandLine(commandLine)
-                    .isDevelopmentProcess(isDevProcess(processName, commandLine))
-                    .user(user)
-                    .localAddress(address)
-                    .portType(portType)
-                    .processType(processType)
-                    .build();
-        } catch (Exception e) {
-            log.warn("Failed to parse lsof line: {}", line, e);
-            return null;
-        }
+        return portList;
     }
 
     /**
-     * 获取进程完整命令行
+     * 补充命令行并识别类型
+     * 同一批端口的PID只查询一次进程元数据
      */
-    private String getProcessCommandLine(Long pid) {
-        try {
-            ProcessBuilder pb = new ProcessBuilder("ps", "-p", pid.toString(), "-o", "command=");
-            Process process = pb.start();
-
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()))) {
-                return reader.readLine();
-            }
-        } catch (Exception e) {
-            log.debug("Failed to get command line for PID {}: {}", pid, e.getMessage());
-            return "";
+    private void enrich(List<PortInfo> portList) {
+        long start = System.nanoTime();
+        Set<Long> pids = new HashSet<>();
+        for (PortInfo portInfo : portList) {
+            pids.add(portInfo.getPid());
         }
-    }
-
-    /**
-     * 判断是否为开发进程
-     */
-    private boolean isDevProcess(String processName, String commandLine) {
-        if (devProcessKeywords == null || devProcessKeywords.isEmpty()) {
-            return false;
+        Map<Long, ProcessInfo> processes = processMetadataCache.resolve(pids);
+        long classifyStart = System.nanoTime();
+        scanMetrics.recordPhase(ScanMetrics.PHASE_ENRICHMENT, classifyStart - start);
+
+        for (PortInfo portInfo : portList) {
+            ProcessInfo process = processes.get(portInfo.getPid());
+            String processName = portInfo.getProcessName();
+            String commandLine = process != null ? process.getCommandLine() : "";
+
+            portInfo.setCommandLine(commandLine);
+            PortTypeIdentifier.Classification classification =
+                    classificationCache.classify(portInfo.getPort(), processName, commandLine);
+            portInfo.setPortType(classification.getPortType());
+            portInfo.setProcessType(classification.getProcessType());
+            portInfo.setIsDevelopmentProcess(classification.getDevelopmentProcess());
         }
-
-        String searchText = (processName + " " + commandLine).toLowerCase();
-        return Arrays.stream(devProcessKeywords.split(","))
-                .map(String::trim)
-                .map(String::toLowerCase)
-                .anyMatch(searchText::contains);
+        scanMetrics.recordPhase(ScanMetrics.PHASE_CLASSIFICATION, System.nanoTime() - classifyStart);
     }
 }
\ No newline at end of file
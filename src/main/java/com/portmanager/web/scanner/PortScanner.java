@@ -17,10 +17,10 @@ public interface PortScanner {
     List<PortInfo> scanPorts();
 
     /**
-     * 扫描指定端口
+     * 扫描指定端口，只探测该端口，不做全量扫描
      *
      * @param port 端口号
-     * @return 端口信息，如果端口未占用则返回null
+     * @return 该端口上的全部监听socket，端口未占用时返回空列表
      */
-    PortInfo scanPort(int port);
+    List<PortInfo> scanPort(int port);
 }
\ No newline at end of file
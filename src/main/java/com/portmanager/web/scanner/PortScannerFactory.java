@@ -22,6 +22,9 @@ public class PortScannerFactory {
     @Autowired
     private WindowsPortScanner windowsPortScanner;
 
+    @Autowired
+    private LinuxPortScanner linuxPortScanner;
+
     private PortScanner portScanner;
 
     @PostConstruct
@@ -35,6 +38,9 @@ public class PortScannerFactory {
         } else if (osName.contains("win")) {
             portScanner = windowsPortScanner;
             log.info("Using Windows port scanner");
+        } else if ((osName.contains("nix") || osName.contains("nux")) && LinuxPortScanner.isSupported()) {
+            portScanner = linuxPortScanner;
+            log.info("Using Linux /proc/net port scanner");
         } else {
             // 默认尝试使用Mac扫描器 (Linux通常也支持lsof)
             portScanner = macPortScanner;
@@ -1,296 +1,213 @@
 package com.portmanager.web.scanner;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
 /**
- * 端口类型识别工具
+ * 端口类型识别
+ * 所有规则的关键字编译为一个多关键字匹配器，对进程名和命令行只扫描一遍，
+ * 同时得出进程类型和端口类型。规则见 {@link ClassificationRules}。
  */
+@Component
 public class PortTypeIdentifier {
 
-    /**
-     * 识别进程类型
-     * @param processName 进程名称
-     * @param commandLine 命令行
-     * @return 进程类型: JAVA, NODE, PYTHON, WEB_SERVER, DATABASE, IDE, BROWSER, SYSTEM, OTHER
-     */
-    public static String identifyProcessType(String processName, String commandLine) {
-        if (processName == null || processName.isEmpty()) {
-            return "OTHER";
-        }
-
-        String lowerProcessName = processName.toLowerCase();
-        String lowerCommandLine = commandLine != null ? commandLine.toLowerCase() : "";
-        String combined = lowerProcessName + " " + lowerCommandLine;
-
-        // Java应用
-        if (isJavaProcess(lowerProcessName, combined)) {
-            return "JAVA";
-        }
-
-        // Node.js应用
-        if (isNodeProcess(lowerProcessName, combined)) {
-            return "NODE";
-        }
-
-        // Python应用
-        if (isPythonProcess(lowerProcessName, combined)) {
-            return "PYTHON";
-        }
-
-        // Web服务器
-        if (isWebServerProcess(lowerProcessName, combined)) {
-            return "WEB_SERVER";
-        }
-
-        // 数据库
-        if (isDatabaseProcess(lowerProcessName, combined)) {
-            return "DATABASE";
-        }
-
-        // IDE
-        if (isIDEProcess(lowerProcessName, combined)) {
-            return "IDE";
-        }
-
-        // 浏览器
-        if (isBrowserProcess(lowerProcessName, combined)) {
-            return "BROWSER";
-        }
-
-        // 系统进程
-        if (isSystemProcess(lowerProcessName)) {
-            return "SYSTEM";
-        }
-
-        return "OTHER";
-    }
-
-    /**
-     * 判断是否为Java进程
-     */
-    private static boolean isJavaProcess(String processName, String combined) {
-        return processName.equals("java") ||
-               processName.contains("java") ||
-               combined.contains("spring") ||
-               combined.contains("tomcat") ||
-               combined.contains("jetty") ||
-               combined.contains(".jar");
-    }
+    private static final Logger log = LoggerFactory.getLogger(PortTypeIdentifier.class);
 
-    /**
-     * 判断是否为Node.js进程
-     */
-    private static boolean isNodeProcess(String processName, String combined) {
-        return processName.equals("node") ||
-               processName.contains("npm") ||
-               processName.contains("yarn") ||
-               processName.contains("pnpm") ||
-               combined.contains("webpack") ||
-               combined.contains("vite") ||
-               combined.contains("next") ||
-               combined.contains("nuxt");
-    }
+    private static final String OTHER = "OTHER";
 
     /**
-     * 判断是否为Python进程
+     * 关键字命中标记
      */
-    private static boolean isPythonProcess(String processName, String combined) {
-        return processName.equals("python") ||
-               processName.equals("python3") ||
-               processName.equals("python2") ||
-               combined.contains("django") ||
-               combined.contains("flask") ||
-               combined.contains("fastapi") ||
-               combined.contains("uvicorn") ||
-               combined.contains("gunicorn");
+    private static final byte IN_TEXT = 1;
+    private static final byte IN_NAME = 2;
+    private static final byte NAME_EQUALS = 4;
+
+    private final KeywordMatcher matcher;
+    private final CompiledRule[] processTypeRules;
+    private final CompiledRule[] portTypeRules;
+
+    @Autowired
+    public PortTypeIdentifier(ClassificationRules rules) {
+        Map<String, Integer> keywordIds = new LinkedHashMap<>();
+        this.processTypeRules = compile(rules.effectiveProcessTypes(), keywordIds);
+        this.portTypeRules = compile(rules.effectivePortTypes(), keywordIds);
+        this.matcher = KeywordMatcher.compile(new ArrayList<>(keywordIds.keySet()));
+        log.info("Classifier compiled: {} process type rules, {} port type rules, {} keywords",
+                processTypeRules.length, portTypeRules.length, keywordIds.size());
     }
 
     /**
-     * 判断是否为Web服务器进程
+     * 识别进程类型和端口类型
+     * @param port 端口号
+     * @param processName 进程名称
+     * @param commandLine 命令行
+     * @return 进程类型: JAVA, NODE, PYTHON, WEB_SERVER, DATABASE, IDE, BROWSER, SYSTEM, OTHER 及自定义类型;
+     *         端口类型: FRONTEND, BACKEND, DATABASE, OTHER 及自定义类型
      */
-    private static boolean isWebServerProcess(String processName, String combined) {
-        return processName.equals("nginx") ||
-               processName.equals("httpd") ||
-               processName.equals("apache") ||
-               processName.equals("apache2") ||
-               processName.contains("caddy") ||
-               processName.contains("lighttpd");
-    }
+    public Classification classify(int port, String processName, String commandLine) {
+        String name = processName != null ? processName : "";
+        byte[] hits = scan(name, commandLine != null ? commandLine : "");
 
-    /**
-     * 判断是否为数据库进程
-     */
-    private static boolean isDatabaseProcess(String processName, String combined) {
-        return processName.contains("mysql") ||
-               processName.contains("postgres") ||
-               processName.contains("redis") ||
-               processName.contains("mongo") ||
-               processName.equals("mongod") ||
-               processName.contains("oracle") ||
-               processName.contains("sqlserver") ||
-               processName.contains("mariadb") ||
-               processName.contains("clickhouse") ||
-               processName.contains("elastic") ||
-               processName.contains("cassandra") ||
-               processName.contains("influx");
+        String processType = name.isEmpty() ? OTHER : firstMatch(processTypeRules, port, hits);
+        String portType = firstMatch(portTypeRules, port, hits);
+        return new Classification(processType, portType);
     }
 
     /**
-     * 判断是否为IDE进程
+     * 扫描 "进程名 命令行"，标记每个关键字的命中情况
      */
-    private static boolean isIDEProcess(String processName, String combined) {
-        return processName.contains("idea") ||
-               processName.contains("intellij") ||
-               processName.contains("pycharm") ||
-               processName.contains("webstorm") ||
-               processName.contains("vscode") ||
-               processName.equals("code") ||
-               processName.contains("eclipse") ||
-               processName.contains("netbeans") ||
-               processName.contains("sublime") ||
-               processName.contains("atom") ||
-               processName.contains("android studio");
+    private byte[] scan(String name, String commandLine) {
+        byte[] hits = new byte[matcher.keywordCount()];
+        int state = matcher.initialState();
+
+        int nameLength = name.length();
+        for (int i = 0; i < nameLength; i++) {
+            state = matcher.next(state, name.charAt(i));
+            for (int id : matcher.matches(state)) {
+                hits[id] |= IN_TEXT | IN_NAME;
+                if (i == nameLength - 1 && matcher.keywordLength(id) == nameLength) {
+                    hits[id] |= NAME_EQUALS;
+                }
+            }
+        }
+
+        state = matcher.scan(state, " ", hits, IN_TEXT);
+        matcher.scan(state, commandLine, hits, IN_TEXT);
+        return hits;
     }
 
-    /**
-     * 判断是否为浏览器进程
-     */
-    private static boolean isBrowserProcess(String processName, String combined) {
-        return processName.contains("chrome") ||
-               processName.contains("firefox") ||
-               processName.contains("safari") ||
-               processName.contains("edge") ||
-               processName.contains("opera") ||
-               processName.contains("brave");
+    private static String firstMatch(CompiledRule[] rules, int port, byte[] hits) {
+        for (CompiledRule rule : rules) {
+            if (rule.matches(port, hits)) {
+                return rule.type;
+            }
+        }
+        return OTHER;
     }
 
-    /**
-     * 判断是否为系统进程
-     */
-    private static boolean isSystemProcess(String processName) {
-        return processName.equals("systemd") ||
-               processName.equals("launchd") ||
-               processName.equals("init") ||
-               processName.equals("sshd") ||
-               processName.equals("cupsd") ||
-               processName.contains("kernel") ||
-               processName.equals("cron") ||
-               processName.equals("systemd-resolved");
+    private static CompiledRule[] compile(List<ClassificationRules.Rule> rules, Map<String, Integer> keywordIds) {
+        CompiledRule[] compiled = new CompiledRule[rules.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            ClassificationRules.Rule rule = rules.get(i);
+            if (rule.getType() == null || rule.getType().trim().isEmpty()) {
+                throw new IllegalArgumentException("Classification rule #" + i + " has no type");
+            }
+            int[] ports = rule.getPorts() != null
+                    ? rule.getPorts().stream().mapToInt(Integer::intValue).sorted().toArray()
+                    : new int[0];
+            compiled[i] = new CompiledRule(
+                    rule.getType().trim(),
+                    keywordIds(rule.getNameEquals(), keywordIds),
+                    keywordIds(rule.getNameContains(), keywordIds),
+                    keywordIds(rule.getContains(), keywordIds),
+                    keywordIds(rule.getRequires(), keywordIds),
+                    ports);
+        }
+        return compiled;
     }
 
-    /**
-     * 识别端口类型
-     * @param port 端口号
-     * @param processName 进程名称
-     * @param commandLine 命令行
-     * @return 端口类型: FRONTEND, BACKEND, DATABASE, OTHER
-     */
-    public static String identifyPortType(int port, String processName, String commandLine) {
-        String lowerProcessName = processName != null ? processName.toLowerCase() : "";
-        String lowerCommandLine = commandLine != null ? commandLine.toLowerCase() : "";
-        String combined = lowerProcessName + " " + lowerCommandLine;
-
-        // 前端端口识别
-        if (isFrontendPort(port, combined)) {
-            return "FRONTEND";
-        }
-
-        // 后端端口识别
-        if (isBackendPort(port, combined)) {
-            return "BACKEND";
-        }
-
-        // 数据库端口识别
-        if (isDatabasePort(port, combined)) {
-            return "DATABASE";
+    private static int[] keywordIds(List<String> keywords, Map<String, Integer> keywordIds) {
+        if (keywords == null) {
+            return new int[0];
         }
-
-        return "OTHER";
+        return keywords.stream()
+                .map(String::trim)
+                .filter(keyword -> !keyword.isEmpty())
+                .map(keyword -> keyword.toLowerCase(Locale.ROOT))
+                .mapToInt(keyword -> keywordIds.computeIfAbsent(keyword, k -> keywordIds.size()))
+                .toArray();
     }
 
     /**
-     * 判断是否为前端端口
+     * 编译后的规则，关键字以匹配器中的下标表示
      */
-    private static boolean isFrontendPort(int port, String combined) {
-        // 常见前端开发服务器
-        if (combined.contains("node") || combined.contains("npm") || combined.contains("yarn") ||
-            combined.contains("webpack") || combined.contains("vite") || combined.contains("react") ||
-            combined.contains("vue") || combined.contains("angular") || combined.contains("next") ||
-            combined.contains("nuxt") || combined.contains("gatsby")) {
-            return true;
-        }
-
-        // 常见前端端口号
-        if (port == 3000 || port == 3001 || port == 4200 || port == 5173 ||
-            port == 8081 || port == 9000 || port == 9090) {
-            return true;
+    private static final class CompiledRule {
+        private final String type;
+        private final int[] nameEquals;
+        private final int[] nameContains;
+        private final int[] contains;
+        private final int[] requires;
+        private final int[] ports;
+        private final boolean requiresOnly;
+
+        private CompiledRule(String type, int[] nameEquals, int[] nameContains, int[] contains,
+                             int[] requires, int[] ports) {
+            this.type = type;
+            this.nameEquals = nameEquals;
+            this.nameContains = nameContains;
+            this.contains = contains;
+            this.requires = requires;
+            this.ports = ports;
+            this.requiresOnly = nameEquals.length == 0 && nameContains.length == 0
+                    && contains.length == 0 && ports.length == 0;
+        }
+
+        private boolean matches(int port, byte[] hits) {
+            for (int id : requires) {
+                if ((hits[id] & IN_TEXT) == 0) {
+                    return false;
+                }
+            }
+            if (requiresOnly) {
+                return requires.length > 0;
+            }
+            return any(nameEquals, hits, NAME_EQUALS)
+                    || any(nameContains, hits, IN_NAME)
+                    || any(contains, hits, IN_TEXT)
+                    || Arrays.binarySearch(ports, port) >= 0;
+        }
+
+        private static boolean any(int[] ids, byte[] hits, byte flag) {
+            for (int id : ids) {
+                if ((hits[id] & flag) != 0) {
+                    return true;
+                }
+            }
+            return false;
         }
-
-        return false;
     }
 
     /**
-     * 判断是否为后端端口
+     * 识别结果
      */
-    private static boolean isBackendPort(int port, String combined) {
-        // Java后端
-        if (combined.contains("java") && (combined.contains("spring") || combined.contains("tomcat") ||
-            combined.contains("jar") || combined.contains("jetty"))) {
-            return true;
-        }
+    public static final class Classification {
+        private final String processType;
+        private final String portType;
+        private final Boolean developmentProcess; // 由 ClassificationCache 补充，未判断时为null
 
-        // Python后端
-        if (combined.contains("python") && (combined.contains("django") || combined.contains("flask") ||
-            combined.contains("fastapi") || combined.contains("uvicorn") || combined.contains("gunicorn"))) {
-            return true;
+        public Classification(String processType, String portType) {
+            this(processType, portType, null);
         }
 
-        // Go后端
-        if (combined.contains("go") && (combined.contains("gin") || combined.contains("beego") ||
-            combined.contains("echo"))) {
-            return true;
+        public Classification(String processType, String portType, Boolean developmentProcess) {
+            this.processType = processType;
+            this.portType = portType;
+            this.developmentProcess = developmentProcess;
         }
 
-        // Node.js后端
-        if (combined.contains("node") && (combined.contains("express") || combined.contains("koa") ||
-            combined.contains("nest") || combined.contains("fastify"))) {
-            return true;
+        public Classification withDevelopmentProcess(boolean developmentProcess) {
+            return new Classification(processType, portType, developmentProcess);
         }
 
-        // 常见后端端口号
-        if (port == 8080 || port == 8000 || port == 8888 || port == 9527 ||
-            port == 7001 || port == 7002 || port == 5000 || port == 80 || port == 443) {
-            return true;
+        public String getProcessType() {
+            return processType;
         }
 
-        return false;
-    }
-
-    /**
-     * 判断是否为数据库端口
-     */
-    private static boolean isDatabasePort(int port, String combined) {
-        // 进程名称包含数据库关键字
-        if (combined.contains("mysql") || combined.contains("postgres") || combined.contains("redis") ||
-            combined.contains("mongodb") || combined.contains("oracle") || combined.contains("sqlserver") ||
-            combined.contains("mariadb") || combined.contains("clickhouse") || combined.contains("elasticsearch")) {
-            return true;
+        public String getPortType() {
+            return portType;
         }
 
-        // 常见数据库端口
-        switch (port) {
-            case 3306:  // MySQL
-            case 5432:  // PostgreSQL
-            case 6379:  // Redis
-            case 27017: // MongoDB
-            case 1521:  // Oracle
-            case 1433:  // SQL Server
-            case 9200:  // Elasticsearch
-            case 9300:  // Elasticsearch cluster
-            case 8086:  // InfluxDB
-            case 9042:  // Cassandra
-            case 33060: // MySQL X Protocol
-                return true;
+        public Boolean getDevelopmentProcess() {
+            return developmentProcess;
         }
-
-        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,258 @@
+package com.portmanager.web.scanner;
+
+import com.portmanager.web.model.ProcessInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 进程元数据缓存
+ * 以 (PID, 进程启动时间) 为键缓存命令行等信息，避免每个端口都fork一次ps。
+ * PID消失或启动时间变化(PID被复用)时条目立即失效。
+ * 有 /proc 时直接读取，否则每次扫描最多执行两次批量 ps。
+ */
+@Component
+public class ProcessMetadataCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessMetadataCache.class);
+
+    private final boolean procAvailable = new File("/proc/self/stat").canRead();
+
+    @Autowired
+    private ScanMetrics scanMetrics;
+
+    /**
+     * PID -> 进程信息 (startTime 作为身份校验)
+     */
+    private final Map<Long, ProcessInfo> cache = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * 批量获取进程元数据
+     *
+     * @param pids 需要的PID集合
+     * @return PID -> 进程信息，已退出的进程不会出现在结果中
+     */
+    public synchronized Map<Long, ProcessInfo> resolve(Collection<Long> pids) {
+        Set<Long> checkPids = new LinkedHashSet<>(cache.keySet());
+        checkPids.addAll(pids);
+
+        // 1. 校验身份: 淘汰已退出或被复用的PID
+        Map<Long, String> startTimes = procAvailable ? readProcStartTimes(checkPids) : readPsStartTimes(checkPids);
+        Iterator<Map.Entry<Long, ProcessInfo>> it = cache.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, ProcessInfo> entry = it.next();
+            String startTime = startTimes.get(entry.getKey());
+            if (startTime == null || !startTime.equals(entry.getValue().getStartTime())) {
+                log.debug("Evicting process metadata for PID {}", entry.getKey());
+                it.remove();
+            }
+        }
+
+        // 2. 只为未命中的PID读取命令行
+        List<Long> missed = new ArrayList<>();
+        for (Long pid : pids) {
+            if (startTimes.containsKey(pid)) {
+                if (cache.containsKey(pid)) {
+                    hits.incrementAndGet();
+                } else {
+                    missed.add(pid);
+                }
+            }
+        }
+        if (!missed.isEmpty()) {
+            misses.addAndGet(missed.size());
+            Map<Long, ProcessInfo> loaded = procAvailable ? readProcProcesses(missed) : readPsProcesses(missed);
+            for (ProcessInfo info : loaded.values()) {
+                info.setStartTime(startTimes.get(info.getPid()));
+                cache.put(info.getPid(), info);
+            }
+            log.debug("Loaded process metadata for {} PIDs, {} cached", missed.size(), cache.size());
+        }
+
+        Map<Long, ProcessInfo> result = new HashMap<>();
+        for (Long pid : pids) {
+            ProcessInfo info = cache.get(pid);
+            if (info != null) {
+                result.put(pid, info);
+            }
+        }
+        return result;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * 获取单个进程的元数据
+     */
+    public ProcessInfo resolve(Long pid) {
+        List<Long> pids = new ArrayList<>(1);
+        pids.add(pid);
+        return resolve(pids).get(pid);
+    }
+
+    // ==================== /proc ====================
+
+    /**
+     * 读取 /proc/[pid]/stat 中的 starttime (第22个字段)
+     */
+    private Map<Long, String> readProcStartTimes(Collection<Long> pids) {
+        Map<Long, String> startTimes = new HashMap<>();
+        for (Long pid : pids) {
+            try {
+                String stat = new String(Files.readAllBytes(Paths.get("/proc", pid.toString(), "stat")),
+                        StandardCharsets.US_ASCII);
+                // comm 可能包含空格，从最后一个 ')' 之后开始计数: state 为第3个字段
+                String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+                if (fields.length > 19) {
+                    startTimes.put(pid, fields[19]);
+                }
+            } catch (IOException | RuntimeException e) {
+                // 进程已退出
+            }
+        }
+        return startTimes;
+    }
+
+    private Map<Long, ProcessInfo> readProcProcesses(Collection<Long> pids) {
+        Map<Long, ProcessInfo> processes = new HashMap<>();
+        for (Long pid : pids) {
+            Path procDir = Paths.get("/proc", pid.toString());
+            try {
+                String processName = new String(Files.readAllBytes(procDir.resolve("comm")),
+                        StandardCharsets.UTF_8).trim();
+
+                byte[] cmdline = Files.readAllBytes(procDir.resolve("cmdline"));
+                int length = cmdline.length;
+                while (length > 0 && cmdline[length - 1] == 0) {
+                    length--;
+                }
+                for (int i = 0; i < length; i++) {
+                    if (cmdline[i] == 0) {
+                        cmdline[i] = ' ';
+                    }
+                }
+
+                String user = null;
+                try {
+                    user = Files.getOwner(procDir).getName();
+                } catch (IOException | UnsupportedOperationException e) {
+                    // 忽略，用户名可选
+                }
+
+                processes.put(pid, ProcessInfo.builder()
+                        .pid(pid)
+                        .processName(processName)
+                        .commandLine(new String(cmdline, 0, length, StandardCharsets.UTF_8))
+                        .user(user)
+                        .build());
+            } catch (IOException e) {
+                log.debug("Failed to read process metadata for PID {}: {}", pid, e.getMessage());
+            }
+        }
+        return processes;
+    }
+
+    // ==================== ps ====================
+
+    /**
+     * 一次 ps 获取所有PID的启动时间
+     * 输出格式: 12345 Sat Oct 18 10:42:12 2026
+     */
+    private Map<Long, String> readPsStartTimes(Collection<Long> pids) {
+        Map<Long, String> startTimes = new HashMap<>();
+        if (pids.isEmpty()) {
+            return startTimes;
+        }
+
+        for (String line : runPs(pids, "pid=,lstart=")) {
+            String[] parts = line.trim().split("\\s+", 2);
+            if (parts.length == 2) {
+                try {
+                    startTimes.put(Long.parseLong(parts[0]), parts[1]);
+                } catch (NumberFormatException e) {
+                    log.debug("Unexpected ps output: {}", line);
+                }
+            }
+        }
+        return startTimes;
+    }
+
+    /**
+     * 一次 ps 获取所有PID的用户和命令行
+     * 输出格式: 12345 user /usr/bin/java -jar app.jar
+     */
+    private Map<Long, ProcessInfo> readPsProcesses(Collection<Long> pids) {
+        Map<Long, ProcessInfo> processes = new HashMap<>();
+        for (String line : runPs(pids, "pid=,user=,command=")) {
+            String[] parts = line.trim().split("\\s+", 3);
+            if (parts.length < 2) {
+                continue;
+            }
+            try {
+                Long pid = Long.parseLong(parts[0]);
+                processes.put(pid, ProcessInfo.builder()
+                        .pid(pid)
+                        .user(parts[1])
+                        .commandLine(parts.length > 2 ? parts[2] : "")
+                        .build());
+            } catch (NumberFormatException e) {
+                log.debug("Unexpected ps output: {}", line);
+            }
+        }
+        return processes;
+    }
+
+    private List<String> runPs(Collection<Long> pids, String format) {
+        List<String> lines = new ArrayList<>();
+        String pidList = pids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        try {
+            Process process = new ProcessBuilder("ps", "-o", format, "-p", pidList).start();
+            scanMetrics.forked();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+            // ps 在部分PID不存在时返回非0，输出仍然有效
+            process.waitFor();
+        } catch (Exception e) {
+            log.debug("Failed to run ps for {} PIDs: {}", pids.size(), e.getMessage());
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,114 @@
+package com.portmanager.web.scanner;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 扫描流程指标
+ * - portmanager.scan.duration: 单次全量扫描耗时
+ * - portmanager.scan.phase.duration{phase}: 各阶段耗时 (exec 执行命令, parse 解析输出,
+ *   enrichment 查询进程元数据, classification 类型识别, publish 发布快照)
+ * - portmanager.scan.forks / portmanager.scan.forks.per.scan: 启动的外部进程数 (累计 / 每次扫描)
+ * - portmanager.scan.parse.failures: 无法解析的输出行
+ * 扫描在单个线程内完成，每次扫描的外部进程数按线程累计。
+ */
+@Component
+public class ScanMetrics {
+
+    public static final String PHASE_EXEC = "exec";
+    public static final String PHASE_PARSE = "parse";
+    public static final String PHASE_ENRICHMENT = "enrichment";
+    public static final String PHASE_CLASSIFICATION = "classification";
+    public static final String PHASE_PUBLISH = "publish";
+
+    private final MeterRegistry registry;
+    private final Timer scanTimer;
+    private final Map<String, Timer> phaseTimers = new ConcurrentHashMap<>();
+    private final Counter forks;
+    private final DistributionSummary forksPerScan;
+    private final Counter parseFailures;
+
+    /**
+     * 当前线程上正在进行的扫描已启动的外部进程数，不在扫描中时为null
+     */
+    private final ThreadLocal<int[]> scanForks = new ThreadLocal<>();
+
+    @Autowired
+    public ScanMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.scanTimer = Timer.builder("portmanager.scan.duration")
+                .description("Full port scan duration")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.forks = Counter.builder("portmanager.scan.forks")
+                .description("External processes started by scanning")
+                .register(registry);
+        this.forksPerScan = DistributionSummary.builder("portmanager.scan.forks.per.scan")
+                .description("External processes started per full scan")
+                .register(registry);
+        this.parseFailures = Counter.builder("portmanager.scan.parse.failures")
+                .description("Scanner output lines that could not be parsed")
+                .register(registry);
+    }
+
+    /**
+     * 开始一次全量扫描
+     */
+    public void beginScan() {
+        scanForks.set(new int[1]);
+    }
+
+    /**
+     * 结束当前线程上的全量扫描
+     *
+     * @param nanos 扫描总耗时
+     */
+    public void endScan(long nanos) {
+        scanTimer.record(nanos, TimeUnit.NANOSECONDS);
+        int[] count = scanForks.get();
+        if (count != null) {
+            forksPerScan.record(count[0]);
+            scanForks.remove();
+        }
+    }
+
+    /**
+     * 记录一个阶段的耗时
+     */
+    public void recordPhase(String phase, long nanos) {
+        phaseTimers.computeIfAbsent(phase, p -> Timer.builder("portmanager.scan.phase.duration")
+                .description("Port scan duration by phase")
+                .tag("phase", p)
+                .publishPercentileHistogram()
+                .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录启动了一个外部进程
+     */
+    public void forked() {
+        forks.increment();
+        int[] count = scanForks.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+
+    /**
+     * 记录无法解析的输出行
+     */
+    public void parseFailures(int count) {
+        if (count > 0) {
+            parseFailures.increment(count);
+        }
+    }
+}
@@ -3,28 +3,32 @@ package com.portmanager.web.scanner;
 import com.portmanager.web.model.PortInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Windows系统端口扫描器
- * 使用netstat命令扫描端口
+ * 使用netstat命令扫描端口，同一次输出中的 ESTABLISHED 连接用于统计各监听端口的连接数
  */
 @Component
 public class WindowsPortScanner implements PortScanner {
 
     private static final Logger log = LoggerFactory.getLogger(WindowsPortScanner.class);
 
-    @Value("${port-manager.scan.dev-process-keywords:idea,java,tace,claude,springboot}")
-    private String devProcessKeywords;
+    @Autowired
+    private DevProcessMatcher devProcessMatcher;
+
+    @Autowired
+    private ScanMetrics scanMetrics;
+
+    private final ConnectionTracker connectionTracker = new ConnectionTracker();
 
     private static final Pattern NETSTAT_PATTERN = Pattern.compile(
             "(TCP|UDP)\\s+([\\d.:]+):(\\d+)\\s+([\\d.:]+|\\*):(\\d+|\\*)\\s+(\\w+)\\s+(\\d+)");
@@ -34,15 +38,18 @@ public class WindowsPortScanner implements PortScanner {
         List<PortInfo> portList = new ArrayList<>();
 
         try {
-            // 执行netstat命令: netstat -ano | findstr LISTENING
-            ProcessBuilder pb = new ProcessBuilder("cmd", "/c", "netstat -ano | findstr LISTENING");
+            // 执行netstat命令: netstat -ano | findstr "LISTENING ESTABLISHED"
+            long start = System.nanoTime();
+            ProcessBuilder pb = new ProcessBuilder("cmd", "/c", "netstat -ano | findstr \"LISTENING ESTABLISHED\"");
             Process process = pb.start();
+            scanMetrics.forked();
 
+            ConnectionTally connections = new ConnectionTally();
             try (BufferedReader reader = new BufferedReader(
                     new InputStreamReader(process.getInputStream()))) {
                 String line;
                 while ((line = reader.readLine()) != null) {
-                    PortInfo portInfo = parseNetstatLine(line);
+                    PortInfo portInfo = parseNetstatLine(line, connections);
                     if (portInfo != null) {
                         portList.add(portInfo);
                     }
@@ -50,6 +57,14 @@ public class WindowsPortScanner implements PortScanner {
             }
 
             process.waitFor();
+            long enrichStart = System.nanoTime();
+            scanMetrics.recordPhase(ScanMetrics.PHASE_EXEC, enrichStart - start);
+
+            for (PortInfo portInfo : portList) {
+                enrich(portInfo);
+            }
+            scanMetrics.recordPhase(ScanMetrics.PHASE_ENRICHMENT, System.nanoTime() - enrichStart);
+            connectionTracker.apply(connections, portList, System.currentTimeMillis(), true);
         } catch (Exception e) {
             log.error("Failed to scan ports on Windows: {}", e.getMessage(), e);
         }
@@ -58,36 +73,48 @@ public class WindowsPortScanner implements PortScanner {
     }
 
     @Override
-    public PortInfo scanPort(int port) {
+    public List<PortInfo> scanPort(int port) {
+        List<PortInfo> portList = new ArrayList<>(2);
         try {
-            // 扫描指定端口
+            // 扫描指定端口，findstr :{port} 也会匹配远程端口或更长的端口号，解析后按本地端口精确过滤
             ProcessBuilder pb = new ProcessBuilder("cmd", "/c",
-                    String.format("netstat -ano | findstr LISTENING | findstr :%d", port));
+                    String.format("netstat -ano | findstr \"LISTENING ESTABLISHED\" | findstr :%d", port));
             Process process = pb.start();
+            scanMetrics.forked();
 
+            ConnectionTally connections = new ConnectionTally();
             try (BufferedReader reader = new BufferedReader(
                     new InputStreamReader(process.getInputStream()))) {
-                String line = reader.readLine();
-                if (line != null) {
-                    return parseNetstatLine(line);
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    PortInfo portInfo = parseNetstatLine(line, connections);
+                    if (portInfo != null && portInfo.getPort() == port) {
+                        portList.add(portInfo);
+                    }
                 }
             }
 
             process.waitFor();
+            for (PortInfo portInfo : portList) {
+                enrich(portInfo);
+            }
+            connectionTracker.apply(connections, portList, System.currentTimeMillis(), false);
         } catch (Exception e) {
             log.error("Failed to scan port {} on Windows: {}", port, e.getMessage());
         }
 
-        return null;
+        return portList;
     }
 
     /**
      * 解析netstat命令输出的一行
      * 示例格式: TCP    0.0.0.0:8080           0.0.0.0:0              LISTENING       12345
+     * 已建立的连接只记入 connections (以整行为指纹)，返回null
      */
-    private PortInfo parseNetstatLine(String line) {
+    private PortInfo parseNetstatLine(String line, ConnectionTally connections) {
         try {
-            Matcher matcher = NETSTAT_PATTERN.matcher(line.trim());
+            String trimmed = line.trim();
+            Matcher matcher = NETSTAT_PATTERN.matcher(trimmed);
             if (!matcher.find()) {
                 return null;
             }
@@ -97,27 +124,36 @@ public class WindowsPortScanner implements PortScanner {
             int port = Integer.parseInt(matcher.group(3));
             String status = matcher.group(6);
             Long pid = Long.parseLong(matcher.group(7));
-
-            // 获取进程名称和命令行
-            String processName = getProcessName(pid);
-            String commandLine = getProcessCommandLine(pid);
+            if ("ESTABLISHED".equals(status)) {
+                connections.add(port, ConnectionTally.fingerprint(trimmed));
+                return null;
+            }
 
             return PortInfo.builder()
                     .port(port)
                     .protocol(protocol)
                     .status(status)
                     .pid(pid)
-                    .processName(processName)
-                    .commandLine(commandLine)
-                    .isDevelopmentProcess(isDevProcess(processName, commandLine))
                     .localAddress(localAddress + ":" + port)
                     .build();
         } catch (Exception e) {
             log.warn("Failed to parse netstat line: {}", line, e);
+            scanMetrics.parseFailures(1);
             return null;
         }
     }
 
+    /**
+     * 获取进程名称和命令行
+     */
+    private void enrich(PortInfo portInfo) {
+        String processName = getProcessName(portInfo.getPid());
+        String commandLine = getProcessCommandLine(portInfo.getPid());
+        portInfo.setProcessName(processName);
+        portInfo.setCommandLine(commandLine);
+        portInfo.setIsDevelopmentProcess(devProcessMatcher.matches(processName, commandLine));
+    }
+
     /**
      * 获取进程名称 (使用tasklist命令)
      */
@@ -126,6 +162,7 @@ public class WindowsPortScanner implements PortScanner {
             ProcessBuilder pb = new ProcessBuilder("cmd", "/c",
                     String.format("tasklist /FI \"PID eq %d\" /FO CSV /NH", pid));
             Process process = pb.start();
+            scanMetrics.forked();
 
             try (BufferedReader reader = new BufferedReader(
                     new InputStreamReader(process.getInputStream()))) {
@@ -153,6 +190,7 @@ public class WindowsPortScanner implements PortScanner {
             ProcessBuilder pb = new ProcessBuilder("cmd", "/c",
                     String.format("wmic process where processid=%d get commandline /format:list", pid));
             Process process = pb.start();
+            scanMetrics.forked();
 
             try (BufferedReader reader = new BufferedReader(
                     new InputStreamReader(process.getInputStream()))) {
@@ -169,19 +207,4 @@ public class WindowsPortScanner implements PortScanner {
 
         return "";
     }
-
-    /**
-     * 判断是否为开发进程
-     */
-    private boolean isDevProcess(String processName, String commandLine) {
-        if (devProcessKeywords == null || devProcessKeywords.isEmpty()) {
-            return false;
-        }
-
-        String searchText = (processName + " " + commandLine).toLowerCase();
-        return Arrays.stream(devProcessKeywords.split(","))
-                .map(String::trim)
-                .map(String::toLowerCase)
-                .anyMatch(searchText::contains);
-    }
 }
\ No newline at end of file
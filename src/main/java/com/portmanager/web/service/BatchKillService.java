@@ -0,0 +1,188 @@
+package com.portmanager.web.service;
+
+import com.portmanager.web.model.BatchKillJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量关闭服务
+ * 提交后立即返回任务ID，各PID在有界线程池中并行关闭，进度通过 {@link #getJob} 查询。
+ * 线程只负责发送信号，等待进程退出 (SIGTERM 宽限期) 是异步的。
+ * 任务完成后加快扫描以尽快反映进程退出，不阻塞请求线程。
+ */
+@Service
+public class BatchKillService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchKillService.class);
+
+    @Autowired
+    private ProcessManageService processManageService;
+
+    @Autowired
+    private ScanScheduler scanScheduler;
+
+    /**
+     * 并行关闭的线程数
+     */
+    @Value("${port-manager.kill.threads:4}")
+    private int threads;
+
+    /**
+     * 等待处理的PID上限，超出时拒绝提交
+     */
+    @Value("${port-manager.kill.queue-capacity:1000}")
+    private int queueCapacity;
+
+    /**
+     * 保留的任务数量，超出后淘汰最早的任务
+     */
+    @Value("${port-manager.kill.job-retention:50}")
+    private int jobRetention;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 按提交顺序排列
+     */
+    private final Map<String, BatchKillJob> jobs = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "batch-kill-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交批量关闭任务
+     *
+     * @param pids      要关闭的PID (已去重)
+     * @param permanent 是否永久停止服务
+     * @param force     是否跳过宽限期直接 SIGKILL
+     * @return 任务，排队已满时返回null
+     */
+    public BatchKillJob submit(Collection<Long> pids, boolean permanent, boolean force) {
+        if (executor.getQueue().remainingCapacity() < pids.size()) {
+            log.warn("Rejecting batch kill of {} processes, {} kills pending", pids.size(), executor.getQueue().size());
+            return null;
+        }
+
+        BatchKillJob job = new BatchKillJob(UUID.randomUUID().toString(), pids, permanent, force);
+        synchronized (jobs) {
+            jobs.put(job.getJobId(), job);
+            evictFinishedJobs();
+        }
+        log.info("Batch kill job {} submitted: {} processes, permanent: {}, force: {}",
+                job.getJobId(), pids.size(), permanent, force);
+
+        for (BatchKillJob.PidResult result : job.getResults()) {
+            try {
+                executor.execute(() -> kill(job, result));
+            } catch (RejectedExecutionException e) {
+                finish(job, result, false, "Too many pending kills");
+            }
+        }
+        scanScheduler.boost();
+        return job;
+    }
+
+    /**
+     * 查询任务
+     */
+    public BatchKillJob getJob(String jobId) {
+        synchronized (jobs) {
+            return jobs.get(jobId);
+        }
+    }
+
+    /**
+     * 超出保留数量时从最早的任务开始淘汰已完成的任务，运行中的任务保留，调用方需持有 jobs 的锁
+     */
+    private void evictFinishedJobs() {
+        Iterator<BatchKillJob> iterator = jobs.values().iterator();
+        while (jobs.size() > jobRetention && iterator.hasNext()) {
+            if (iterator.next().hasFinished()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void kill(BatchKillJob job, BatchKillJob.PidResult result) {
+        result.start();
+        Long pid = result.getPid();
+        try {
+            if (!processManageService.isProcessAlive(pid)) {
+                finish(job, result, false, "Process not found or already terminated");
+                return;
+            }
+
+            result.requested();
+            CompletableFuture<ProcessManageService.TerminationResult> future = job.isPermanent()
+                    ? processManageService.terminateProcessPermanently(pid, job.isForce())
+                    : processManageService.terminateProcess(pid, job.isForce());
+
+            // 等待进程退出不占用线程，结果在进程退出或强制关闭后记录
+            future.whenComplete((termination, e) -> {
+                if (e != null) {
+                    log.error("Batch kill job {} failed on PID {}", job.getJobId(), pid, e);
+                    finish(job, result, false, "Failed to kill process: " + e.getMessage(), null);
+                } else if (termination == ProcessManageService.TerminationResult.FAILED) {
+                    finish(job, result, false, termination.getMessage(), termination.name());
+                } else {
+                    finish(job, result, true, describe(job, termination), termination.name());
+                }
+            });
+        } catch (Exception e) {
+            log.error("Batch kill job {} failed on PID {}", job.getJobId(), pid, e);
+            finish(job, result, false, "Failed to kill process: " + e.getMessage());
+        }
+    }
+
+    private static String describe(BatchKillJob job, ProcessManageService.TerminationResult termination) {
+        if (termination.isServiceStopped() && job.isPermanent()) {
+            return "Service stopped permanently";
+        }
+        return termination.getMessage();
+    }
+
+    private void finish(BatchKillJob job, BatchKillJob.PidResult result, boolean success, String message) {
+        finish(job, result, success, message, null);
+    }
+
+    private void finish(BatchKillJob job, BatchKillJob.PidResult result, boolean success, String message,
+                        String termination) {
+        if (job.complete(result, success, message, termination)) {
+            log.info("Batch kill job {} completed: {} success, {} failed",
+                    job.getJobId(), job.getSuccessCount(), job.getFailCount());
+            // 加快接下来的扫描以跟踪进程退出
+            scanScheduler.boost();
+        }
+    }
+}
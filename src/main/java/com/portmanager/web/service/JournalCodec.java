@@ -0,0 +1,170 @@
+package com.portmanager.web.service;
+
+import com.portmanager.web.model.PortDiff;
+import com.portmanager.web.model.PortInfo;
+import com.portmanager.web.model.SocketKey;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 端口日志的二进制编码
+ * 日志记录: fromVersion, toVersion, scanTime, added(PortInfo), removed(SocketKey), changed(PortInfo)
+ * (只有连接数变化的 counts 不记录，重放出的连接数为socket最后一次变化时的值)
+ * 检查点: version, scanTime, 全部 PortInfo
+ * 字符串以 UTF-8 长度前缀编码 (null 为 -1)，不受 writeUTF 的 64KB 限制
+ */
+final class JournalCodec {
+
+    private JournalCodec() {
+    }
+
+    static void writeDiff(DataOutput out, PortDiff diff) throws IOException {
+        out.writeLong(diff.getFromVersion());
+        out.writeLong(diff.getToVersion());
+        out.writeLong(diff.getScanTime());
+        writePorts(out, diff.getAdded());
+        out.writeInt(diff.getRemoved().size());
+        for (PortInfo portInfo : diff.getRemoved()) {
+            writeKey(out, SocketKey.of(portInfo));
+        }
+        writePorts(out, diff.getChanged());
+    }
+
+    /**
+     * 读取一条日志记录并应用到状态上
+     *
+     * @return 记录的 toVersion
+     */
+    static long applyDiff(DataInput in, JournalState state) throws IOException {
+        in.readLong(); // fromVersion
+        long toVersion = in.readLong();
+        long scanTime = in.readLong();
+        Map<SocketKey, PortInfo> sockets = state.getSockets();
+        int added = in.readInt();
+        for (int i = 0; i < added; i++) {
+            PortInfo portInfo = readPort(in);
+            sockets.put(SocketKey.of(portInfo), portInfo);
+        }
+        int removed = in.readInt();
+        for (int i = 0; i < removed; i++) {
+            sockets.remove(readKey(in));
+        }
+        int changed = in.readInt();
+        for (int i = 0; i < changed; i++) {
+            PortInfo portInfo = readPort(in);
+            sockets.put(SocketKey.of(portInfo), portInfo);
+        }
+        state.advance(toVersion, scanTime);
+        return toVersion;
+    }
+
+    static void writeCheckpoint(DataOutput out, long version, long scanTime, Collection<PortInfo> ports)
+            throws IOException {
+        out.writeLong(version);
+        out.writeLong(scanTime);
+        writePorts(out, ports);
+    }
+
+    static JournalState readCheckpoint(DataInput in) throws IOException {
+        long version = in.readLong();
+        long scanTime = in.readLong();
+        JournalState state = new JournalState(version, scanTime);
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            PortInfo portInfo = readPort(in);
+            state.getSockets().put(SocketKey.of(portInfo), portInfo);
+        }
+        return state;
+    }
+
+    private static void writePorts(DataOutput out, Collection<PortInfo> ports) throws IOException {
+        out.writeInt(ports.size());
+        for (PortInfo portInfo : ports) {
+            writePort(out, portInfo);
+        }
+    }
+
+    private static void writePort(DataOutput out, PortInfo p) throws IOException {
+        out.writeInt(p.getPort() != null ? p.getPort() : -1);
+        writeString(out, p.getProtocol());
+        writeString(out, p.getStatus());
+        out.writeLong(p.getPid() != null ? p.getPid() : -1);
+        writeString(out, p.getProcessName());
+        writeString(out, p.getProcessPath());
+        writeString(out, p.getCommandLine());
+        out.writeByte(p.getIsDevelopmentProcess() == null ? -1 : p.getIsDevelopmentProcess() ? 1 : 0);
+        writeString(out, p.getStartTime());
+        writeString(out, p.getUser());
+        writeString(out, p.getLocalAddress());
+        writeString(out, p.getRemoteAddress());
+        writeString(out, p.getPortType());
+        writeString(out, p.getProcessType());
+    }
+
+    private static PortInfo readPort(DataInput in) throws IOException {
+        int port = in.readInt();
+        String protocol = readString(in);
+        String status = readString(in);
+        long pid = in.readLong();
+        String processName = readString(in);
+        String processPath = readString(in);
+        String commandLine = readString(in);
+        byte dev = in.readByte();
+        return PortInfo.builder()
+                .port(port >= 0 ? port : null)
+                .protocol(protocol)
+                .status(status)
+                .pid(pid >= 0 ? pid : null)
+                .processName(processName)
+                .processPath(processPath)
+                .commandLine(commandLine)
+                .isDevelopmentProcess(dev < 0 ? null : dev == 1)
+                .startTime(readString(in))
+                .user(readString(in))
+                .localAddress(readString(in))
+                .remoteAddress(readString(in))
+                .portType(readString(in))
+                .processType(readString(in))
+                .build();
+    }
+
+    private static void writeKey(DataOutput out, SocketKey key) throws IOException {
+        writeString(out, key.getProtocol());
+        writeString(out, key.getLocalAddress());
+        out.writeInt(key.getPort());
+        out.writeLong(key.getPid() != null ? key.getPid() : -1);
+    }
+
+    private static SocketKey readKey(DataInput in) throws IOException {
+        String protocol = readString(in);
+        String localAddress = readString(in);
+        int port = in.readInt();
+        long pid = in.readLong();
+        return new SocketKey(protocol, localAddress, port, pid >= 0 ? pid : null);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,62 @@
+package com.portmanager.web.service;
+
+import com.portmanager.web.model.PortDiff;
+import com.portmanager.web.model.PortInfo;
+import com.portmanager.web.model.PortSnapshot;
+import com.portmanager.web.model.SocketKey;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 重放日志得到的端口状态
+ */
+final class JournalState {
+
+    private final Map<SocketKey, PortInfo> sockets = new LinkedHashMap<>();
+    private long version;
+    private long scanTime;
+
+    JournalState(long version, long scanTime) {
+        this.version = version;
+        this.scanTime = scanTime;
+    }
+
+    Map<SocketKey, PortInfo> getSockets() {
+        return sockets;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    long getScanTime() {
+        return scanTime;
+    }
+
+    void advance(long version, long scanTime) {
+        this.version = version;
+        this.scanTime = scanTime;
+    }
+
+    /**
+     * 应用一个快照差异
+     */
+    void apply(PortDiff diff) {
+        for (PortInfo portInfo : diff.getRemoved()) {
+            sockets.remove(SocketKey.of(portInfo));
+        }
+        for (PortInfo portInfo : diff.getAdded()) {
+            sockets.put(SocketKey.of(portInfo), portInfo);
+        }
+        for (PortInfo portInfo : diff.getChanged()) {
+            sockets.put(SocketKey.of(portInfo), portInfo);
+        }
+        advance(diff.getToVersion(), diff.getScanTime());
+    }
+
+    PortSnapshot toSnapshot() {
+        return new PortSnapshot(version, scanTime, new ArrayList<>(sockets.values()));
+    }
+}
@@ -0,0 +1,239 @@
+package com.portmanager.web.service;
+
+import com.portmanager.web.model.PortDiff;
+import com.portmanager.web.model.PortHistory;
+import com.portmanager.web.model.PortInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 端口占用历史
+ * - 随每次快照差异记录监听socket的打开/关闭事件，每个端口一个固定大小的环形缓冲区，写满后覆盖最早的事件
+ * - 缓冲区由基本类型数组组成，进程名、协议、本地地址映射为字符串表中的ID，记录事件不创建对象
+ * - 缓冲区在端口第一次出现时分配，从未被占用的端口不占内存
+ * - 查询时由事件还原占用区间: 同一 (PID, 协议, 本地地址) 的打开和之后的关闭组成一个区间
+ */
+@Service
+public class PortHistoryStore {
+
+    private static final int MAX_PORT = 65535;
+
+    private static final byte OPEN = 1;
+    private static final byte CLOSE = 0;
+
+    private static final long NO_PID = -1;
+
+    /**
+     * 每个端口保留的事件数
+     */
+    @Value("${port-manager.history.events-per-port:256}")
+    private int eventsPerPort;
+
+    /**
+     * 事件保留时长(毫秒)，更早的事件不再返回
+     */
+    @Value("${port-manager.history.retention:86400000}")
+    private long retentionMs;
+
+    private final AtomicReferenceArray<Ring> rings = new AtomicReferenceArray<>(MAX_PORT + 1);
+
+    /**
+     * 字符串表: 进程名、协议、本地地址，只增不减
+     */
+    private final Map<String, Integer> stringIds = new ConcurrentHashMap<>();
+    private volatile String[] strings = new String[64];
+    private int stringCount;
+
+    @EventListener
+    public void onPortDiff(PortDiff diff) {
+        long time = diff.getScanTime();
+        // 同一次扫描中先关闭后打开，端口被另一个socket接替时区间不重叠
+        for (PortInfo portInfo : diff.getRemoved()) {
+            record(portInfo, time, CLOSE);
+        }
+        for (PortInfo portInfo : diff.getAdded()) {
+            record(portInfo, time, OPEN);
+        }
+    }
+
+    /**
+     * 查询端口在 [from, to] 内的事件和占用区间
+     */
+    public PortHistory query(int port, long from, long to) {
+        List<PortHistory.Event> events = new ArrayList<>();
+        List<PortHistory.Interval> intervals = new ArrayList<>();
+        Ring ring = port >= 0 && port <= MAX_PORT ? rings.get(port) : null;
+        if (ring == null) {
+            return new PortHistory(port, from, to, events, intervals);
+        }
+
+        // 超出保留时长的事件不再列出，但仍用于还原区间 (长期占用的端口保留其打开时间)
+        long eventsFrom = Math.max(from, System.currentTimeMillis() - retentionMs);
+        synchronized (ring) {
+            // 尚未关闭的打开事件 (环形缓冲区中的下标)
+            int[] open = new int[ring.size];
+            int openCount = 0;
+
+            for (int n = 0; n < ring.size; n++) {
+                int i = ring.index(n);
+                long time = ring.times[i];
+                if (time >= eventsFrom && time <= to) {
+                    events.add(new PortHistory.Event(time, ring.types[i] == OPEN ? "OPEN" : "CLOSE",
+                            pid(ring.pids[i]), string(ring.nameIds[i]), string(ring.protocolIds[i]),
+                            string(ring.addressIds[i])));
+                }
+
+                if (ring.types[i] == OPEN) {
+                    open[openCount++] = i;
+                    continue;
+                }
+                // 与最早的同一socket的打开事件配对，打开事件已被覆盖时区间起点未知
+                Long start = null;
+                for (int k = 0; k < openCount; k++) {
+                    int o = open[k];
+                    if (ring.pids[o] == ring.pids[i] && ring.protocolIds[o] == ring.protocolIds[i]
+                            && ring.addressIds[o] == ring.addressIds[i]) {
+                        start = ring.times[o];
+                        System.arraycopy(open, k + 1, open, k, openCount - k - 1);
+                        openCount--;
+                        break;
+                    }
+                }
+                addInterval(intervals, from, to, start, time, ring, i);
+            }
+            for (int k = 0; k < openCount; k++) {
+                int o = open[k];
+                addInterval(intervals, from, to, ring.times[o], null, ring, o);
+            }
+        }
+        return new PortHistory(port, from, to, events, intervals);
+    }
+
+    /**
+     * 有历史记录的端口数
+     */
+    public int getTrackedPorts() {
+        int count = 0;
+        for (int port = 0; port <= MAX_PORT; port++) {
+            if (rings.get(port) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long getRetentionMs() {
+        return retentionMs;
+    }
+
+    private void record(PortInfo portInfo, long time, byte type) {
+        Integer port = portInfo.getPort();
+        if (port == null || port < 0 || port > MAX_PORT) {
+            return;
+        }
+        Ring ring = rings.get(port);
+        if (ring == null) {
+            ring = new Ring(eventsPerPort);
+            rings.set(port, ring);
+        }
+
+        int nameId = intern(portInfo.getProcessName());
+        int protocolId = intern(portInfo.getProtocol());
+        int addressId = intern(portInfo.getLocalAddress());
+        long pid = portInfo.getPid() != null ? portInfo.getPid() : NO_PID;
+        synchronized (ring) {
+            ring.add(time, pid, nameId, protocolId, addressId, type);
+        }
+    }
+
+    /**
+     * 字符串转ID，只在快照发布线程中调用
+     */
+    private int intern(String value) {
+        String key = value != null ? value : "";
+        Integer id = stringIds.get(key);
+        if (id != null) {
+            return id;
+        }
+
+        String[] current = strings;
+        if (stringCount == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[stringCount] = key;
+        // 先发布数组再发布ID，读取方拿到ID时一定能查到字符串
+        strings = current;
+        stringIds.put(key, stringCount);
+        return stringCount++;
+    }
+
+    private String string(int id) {
+        return strings[id];
+    }
+
+    private static Long pid(long pid) {
+        return pid == NO_PID ? null : pid;
+    }
+
+    private void addInterval(List<PortHistory.Interval> intervals, long from, long to,
+                             Long start, Long end, Ring ring, int i) {
+        if ((start == null || start <= to) && (end == null || end >= from)) {
+            intervals.add(new PortHistory.Interval(start, end, pid(ring.pids[i]), string(ring.nameIds[i]),
+                    string(ring.protocolIds[i]), string(ring.addressIds[i])));
+        }
+    }
+
+    /**
+     * 单个端口的事件环形缓冲区
+     */
+    private static final class Ring {
+        private final long[] times;
+        private final long[] pids;
+        private final int[] nameIds;
+        private final int[] protocolIds;
+        private final int[] addressIds;
+        private final byte[] types;
+        private int head; // 最早事件的下标
+        private int size;
+
+        private Ring(int capacity) {
+            times = new long[capacity];
+            pids = new long[capacity];
+            nameIds = new int[capacity];
+            protocolIds = new int[capacity];
+            addressIds = new int[capacity];
+            types = new byte[capacity];
+        }
+
+        private void add(long time, long pid, int nameId, int protocolId, int addressId, byte type) {
+            int i;
+            if (size < times.length) {
+                i = index(size++);
+            } else {
+                i = head;
+                head = (head + 1) % times.length;
+            }
+            times[i] = time;
+            pids[i] = pid;
+            nameIds[i] = nameId;
+            protocolIds[i] = protocolId;
+            addressIds[i] = addressId;
+            types[i] = type;
+        }
+
+        /**
+         * 第 n 个事件 (从最早开始) 的下标
+         */
+        private int index(int n) {
+            return (head + n) % times.length;
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package com.portmanager.web.service;
+
+import com.portmanager.web.model.PortDiff;
+import com.portmanager.web.model.PortSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 端口事件日志
+ * - 每个快照差异追加到内存映射的分段文件 (segment-{起始版本}.log)，分段写满后新建下一个
+ * - 每 checkpoint-every 条记录把当前完整状态压缩为一个检查点 (checkpoint-{版本}-{扫描时间}.bin)
+ * - 启动时从最新的检查点加上其后的日志恢复上次的端口状态，无需等待首次扫描
+ * - 按时间查询时从该时间之前最近的检查点重放日志，得到当时的端口状态
+ * 记录格式: [长度][CRC32][内容]，长度为0表示分段结束；进程崩溃留下的不完整记录由CRC识别并丢弃。
+ */
+@Service
+public class PortJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(PortJournal.class);
+
+    private static final int SEGMENT_MAGIC = 0x504D4A31; // "PMJ1"
+    private static final int CHECKPOINT_MAGIC = 0x504D4331; // "PMC1"
+    private static final int SEGMENT_HEADER = 8; // magic + 保留
+    private static final int RECORD_HEADER = 8; // 长度 + CRC32
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_PREFIX = "checkpoint-";
+    private static final String CHECKPOINT_SUFFIX = ".bin";
+
+    @Value("${port-manager.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${port-manager.journal.directory:${user.home}/.port-manager/journal}")
+    private String directory;
+
+    /**
+     * 分段文件大小(字节)
+     */
+    @Value("${port-manager.journal.segment-size:4194304}")
+    private int segmentSize;
+
+    /**
+     * 每隔多少条记录写一次检查点
+     */
+    @Value("${port-manager.journal.checkpoint-every:720}")
+    private int checkpointEvery;
+
+    /**
+     * 按时间查询的保留时长(毫秒)，更早的检查点和分段会被清理
+     */
+    @Value("${port-manager.journal.retention:604800000}")
+    private long retentionMs;
+
+    private Path dir;
+
+    /**
+     * 写入方状态，只在快照发布线程中修改
+     */
+    private JournalState state = new JournalState(0, 0);
+    private volatile Segment active;
+    private volatile boolean writable;
+    private int sinceCheckpoint;
+    private long checkpointVersion = -1;
+
+    /**
+     * 查询重放持读锁，清理旧文件持写锁
+     */
+    private final ReentrantReadWriteLock fileLock = new ReentrantReadWriteLock();
+
+    /**
+     * 从最新的检查点和日志恢复上次的端口状态，之后开始记录新的差异
+     * 应在发布第一个快照之前调用
+     *
+     * @return 恢复的快照；未启用日志或没有可恢复的记录时返回null
+     */
+    public synchronized PortSnapshot restore() {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            dir = Paths.get(directory);
+            Files.createDirectories(dir);
+
+            JournalState restored = replay(Long.MAX_VALUE, true);
+            if (restored != null) {
+                state = restored;
+            }
+            // 无法接上恢复状态的文件 (损坏或不连续) 不再有用
+            discardAfter(restored != null ? restored.getVersion() : -1);
+            writable = true;
+            return restored != null && restored.getVersion() > 0 ? restored.toSnapshot() : null;
+        } catch (IOException e) {
+            log.warn("Failed to open port journal {}, journal disabled: {}", directory, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 追加一个快照差异，由快照发布方按版本顺序调用
+     */
+    public synchronized void append(PortDiff diff) {
+        if (!writable) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            JournalCodec.writeDiff(new DataOutputStream(bytes), diff);
+            write(diff.getFromVersion(), bytes.toByteArray());
+            state.apply(diff);
+            if (++sinceCheckpoint >= checkpointEvery) {
+                writeCheckpoint();
+            }
+        } catch (IOException e) {
+            // 跳过一条记录后日志不再连续，停止写入
+            log.warn("Failed to write port journal, journal disabled: {}", e.getMessage());
+            writable = false;
+        }
+    }
+
+    /**
+     * 查询指定时间的端口状态
+     *
+     * @param time 毫秒时间戳
+     * @return 该时间之前最后一次扫描的快照；超出日志范围时返回null
+     */
+    public PortSnapshot getSnapshotAt(long time) {
+        if (dir == null) {
+            return null;
+        }
+        fileLock.readLock().lock();
+        try {
+            JournalState replayed = replay(time, false);
+            // 早于第一次扫描的时间没有记录
+            return replayed != null && replayed.getVersion() > 0 ? replayed.toSnapshot() : null;
+        } catch (IOException e) {
+            log.warn("Failed to replay port journal: {}", e.getMessage());
+            return null;
+        } finally {
+            fileLock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (!writable) {
+            return;
+        }
+        try {
+            // 下次启动直接从检查点恢复，无需重放
+            writeCheckpoint();
+        } catch (IOException e) {
+            log.warn("Failed to write port journal checkpoint: {}", e.getMessage());
+        }
+        closeActive();
+        writable = false;
+    }
+
+    /**
+     * 从不晚于 until 的最新检查点开始，重放扫描时间不晚于 until 的日志记录
+     *
+     * @param truncateTail 截掉最后一个分段中无效的尾部 (仅在启动恢复时)
+     * @return 重放后的状态；没有可用的检查点且日志不是从头开始时返回null
+     */
+    private JournalState replay(long until, boolean truncateTail) throws IOException {
+        NavigableMap<Long, Path> segments = listSegments();
+        JournalState replayed = null;
+        for (FileRef checkpoint : listCheckpoints().descendingMap().values()) {
+            if (checkpoint.scanTime <= until) {
+                replayed = loadCheckpoint(checkpoint.path);
+                if (replayed != null) {
+                    break;
+                }
+            }
+        }
+        if (replayed == null) {
+            // 没有可用的检查点时只能从版本0的第一条记录开始重放
+            if (segments.isEmpty() || segments.firstKey() != 0) {
+                return null;
+            }
+            replayed = new JournalState(0, 0);
+        }
+
+        List<Map.Entry<Long, Path>> entries = new ArrayList<>(segments.entrySet());
+        for (int i = 0; i < entries.size(); i++) {
+            boolean last = i + 1 == entries.size();
+            if (!last && entries.get(i + 1).getKey() <= replayed.getVersion()) {
+                continue; // 整个分段都在检查点之前
+            }
+            Path file = entries.get(i).getValue();
+            Segment current = active;
+            int limit = current != null && current.path.equals(file) ? current.committed : Integer.MAX_VALUE;
+            int end = replaySegment(file, limit, replayed, until);
+            if (end < 0) {
+                break;
+            }
+            if (truncateTail && last) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(end);
+                }
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * 重放一个分段
+     *
+     * @return 有效记录的结束位置；遇到晚于 until 的记录或版本不连续时返回-1，重放应停止
+     */
+    private int replaySegment(Path file, int limit, JournalState replayed, long until) throws IOException {
+        ByteBuffer buffer = readFile(file, limit);
+        if (buffer.limit() < SEGMENT_HEADER || buffer.getInt(0) != SEGMENT_MAGIC) {
+            return 0;
+        }
+
+        CRC32 crc = new CRC32();
+        int position = SEGMENT_HEADER;
+        while (position + RECORD_HEADER <= buffer.limit()) {
+            int length = buffer.getInt(position);
+            int offset = position + RECORD_HEADER;
+            if (length <= 0 || length > buffer.limit() - offset) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.array(), offset, length);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+
+            long fromVersion = buffer.getLong(offset);
+            long toVersion = buffer.getLong(offset + 8);
+            long scanTime = buffer.getLong(offset + 16);
+            if (toVersion > replayed.getVersion()) {
+                if (scanTime > until || fromVersion != replayed.getVersion()) {
+                    return -1;
+                }
+                JournalCodec.applyDiff(new DataInputStream(
+                        new ByteArrayInputStream(buffer.array(), offset, length)), replayed);
+            }
+            position = offset + length;
+        }
+        return position;
+    }
+
+    private void write(long fromVersion, byte[] payload) throws IOException {
+        int needed = RECORD_HEADER + payload.length;
+        Segment segment = active;
+        if (segment == null || segment.buffer.capacity() - segment.committed < needed) {
+            segment = roll(fromVersion, needed);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        MappedByteBuffer buffer = segment.buffer;
+        int position = segment.committed;
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.position(position + RECORD_HEADER);
+        buffer.put(payload);
+        // 最后写长度，进程在写入中途退出时留下的记录会被识别为不完整
+        buffer.putInt(position, payload.length);
+        segment.committed = position + needed;
+    }
+
+    private Segment roll(long firstVersion, int needed) throws IOException {
+        closeActive();
+        Path file = dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstVersion, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // 映射在通道关闭后仍然有效
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.max(segmentSize, SEGMENT_HEADER + needed));
+            buffer.putInt(0, SEGMENT_MAGIC);
+            active = new Segment(file, buffer);
+        }
+        return active;
+    }
+
+    private void closeActive() {
+        Segment segment = active;
+        if (segment != null) {
+            segment.buffer.force();
+            active = null;
+        }
+    }
+
+    private void writeCheckpoint() throws IOException {
+        if (state.getVersion() == checkpointVersion) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        JournalCodec.writeCheckpoint(new DataOutputStream(bytes), state.getVersion(), state.getScanTime(),
+                state.getSockets().values());
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        Path file = dir.resolve(String.format("%s%020d-%d%s", CHECKPOINT_PREFIX, state.getVersion(),
+                state.getScanTime(), CHECKPOINT_SUFFIX));
+        Path temp = dir.resolve(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(payload.length);
+            out.writeInt((int) crc.getValue());
+            out.write(payload);
+        }
+        // 检查点之前的日志先落盘，再让检查点可见
+        Segment segment = active;
+        if (segment != null) {
+            segment.buffer.force();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpointVersion = state.getVersion();
+        sinceCheckpoint = 0;
+        log.debug("Port journal checkpoint at version {} ({} sockets)", state.getVersion(), state.getSockets().size());
+
+        removeExpired();
+    }
+
+    private JournalState loadCheckpoint(Path file) {
+        try {
+            ByteBuffer buffer = readFile(file, Integer.MAX_VALUE);
+            if (buffer.limit() < 12 || buffer.getInt(0) != CHECKPOINT_MAGIC) {
+                return null;
+            }
+            int length = buffer.getInt(4);
+            if (length < 0 || length > buffer.limit() - 12) {
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), 12, length);
+            if ((int) crc.getValue() != buffer.getInt(8)) {
+                return null;
+            }
+            return JournalCodec.readCheckpoint(new DataInputStream(
+                    new ByteArrayInputStream(buffer.array(), 12, length)));
+        } catch (IOException e) {
+            log.warn("Failed to read port journal checkpoint {}: {}", file.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 清理超出保留时长的检查点和分段
+     * 保留时长开始前的最后一个检查点作为按时间查询的重放起点保留
+     */
+    private void removeExpired() {
+        if (!fileLock.writeLock().tryLock()) {
+            return; // 有查询正在重放，下次检查点时再清理
+        }
+        try {
+            long cutoff = System.currentTimeMillis() - retentionMs;
+            NavigableMap<Long, FileRef> checkpoints = listCheckpoints();
+            FileRef base = null;
+            for (FileRef checkpoint : checkpoints.values()) {
+                if (checkpoint.scanTime < cutoff) {
+                    base = checkpoint;
+                }
+            }
+            if (base == null) {
+                return;
+            }
+            for (FileRef checkpoint : checkpoints.headMap(base.version, false).values()) {
+                Files.deleteIfExists(checkpoint.path);
+            }
+            List<Map.Entry<Long, Path>> segments = new ArrayList<>(listSegments().entrySet());
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                if (segments.get(i + 1).getKey() <= base.version) {
+                    Files.deleteIfExists(segments.get(i).getValue());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to remove expired port journal files: {}", e.getMessage());
+        } finally {
+            fileLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除版本晚于 version 的文件，version 为-1时删除全部
+     */
+    private void discardAfter(long version) throws IOException {
+        for (Map.Entry<Long, Path> segment : listSegments().entrySet()) {
+            if (version < 0 || segment.getKey() > version) {
+                log.warn("Discarding unusable port journal segment {}", segment.getValue().getFileName());
+                Files.deleteIfExists(segment.getValue());
+            }
+        }
+        for (FileRef checkpoint : listCheckpoints().values()) {
+            if (version < 0 || checkpoint.version > version) {
+                log.warn("Discarding unusable port journal checkpoint {}", checkpoint.path.getFileName());
+                Files.deleteIfExists(checkpoint.path);
+            }
+        }
+    }
+
+    private NavigableMap<Long, Path> listSegments() throws IOException {
+        NavigableMap<Long, Path> segments = new TreeMap<>();
+        for (Path file : list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            String name = file.getFileName().toString();
+            Long version = parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            if (version != null) {
+                segments.put(version, file);
+            }
+        }
+        return segments;
+    }
+
+    private NavigableMap<Long, FileRef> listCheckpoints() throws IOException {
+        NavigableMap<Long, FileRef> checkpoints = new TreeMap<>();
+        for (Path file : list(CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX)) {
+            String name = file.getFileName().toString();
+            String[] parts = name.substring(CHECKPOINT_PREFIX.length(), name.length() - CHECKPOINT_SUFFIX.length())
+                    .split("-");
+            Long version = parts.length == 2 ? parseLong(parts[0]) : null;
+            Long scanTime = parts.length == 2 ? parseLong(parts[1]) : null;
+            if (version != null && scanTime != null) {
+                checkpoints.put(version, new FileRef(version, scanTime, file));
+            }
+        }
+        return checkpoints;
+    }
+
+    private List<Path> list(String prefix, String suffix) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(dir)) {
+            stream.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(suffix);
+            }).forEach(files::add);
+        }
+        return files;
+    }
+
+    private static ByteBuffer readFile(Path file, int limit) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), limit));
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // 读满为止
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    private static Long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 正在写入的分段
+     */
+    private static final class Segment {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private volatile int committed = SEGMENT_HEADER; // 已完整写入的记录末尾
+
+        private Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    private static final class FileRef {
+        private final long version;
+        private final long scanTime;
+        private final Path path;
+
+        private FileRef(long version, long scanTime, Path path) {
+            this.version = version;
+            this.scanTime = scanTime;
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.portmanager.web.service;
+
+import com.portmanager.web.model.PortDiff;
+import com.portmanager.web.model.PortInfo;
+import com.portmanager.web.model.PortLease;
+import com.portmanager.web.model.PortOccupancy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * 空闲端口分配
+ * - 在快照的占用位图上分配空闲端口，已租出的端口记在另一张位图中，分配时两者合并按字扫描，不遍历端口列表
+ * - 租出的端口在租约结束前不会再分配，不区分协议
+ * - 从上次分配位置之后继续分配 (到范围末尾后回到开头)，刚归还的端口不会立即被再次分配
+ * - 端口上出现匹配的监听socket后归还该端口，之后由快照标记为占用；租约到期时一并归还
+ * - 到期租约按到期时间放在堆中，每次分配/查询/收到差异时清理，不需要定时任务
+ */
+@Service
+public class PortLeaseService {
+
+    private static final Logger log = LoggerFactory.getLogger(PortLeaseService.class);
+
+    @Autowired
+    private PortScanService portScanService;
+
+    /**
+     * 默认租期(毫秒)
+     */
+    @Value("${port-manager.lease.default-ttl:60000}")
+    private long defaultTtl;
+
+    /**
+     * 最长租期(毫秒)
+     */
+    @Value("${port-manager.lease.max-ttl:600000}")
+    private long maxTtl;
+
+    /**
+     * 单次最多分配的端口数
+     */
+    @Value("${port-manager.lease.max-ports:256}")
+    private int maxPorts;
+
+    /**
+     * 同时租出的端口数上限
+     */
+    @Value("${port-manager.lease.max-leased-ports:16384}")
+    private int maxLeasedPorts;
+
+    private final long[] leased = new long[PortOccupancy.WORDS];
+    private final PortLease[] portLeases = new PortLease[PortOccupancy.MAX_PORT + 1];
+    private final Map<String, PortLease> leases = new HashMap<>();
+    private final PriorityQueue<PortLease> expiry = new PriorityQueue<>(Comparator.comparingLong(PortLease::getExpiresAt));
+    private int leasedCount;
+    private int cursor;
+
+    /**
+     * 从 [from, to] 中分配 count 个空闲端口
+     *
+     * @param protocol TCP / UDP，只有该协议的监听会归还端口；null 表示任意协议，分配时要求所有协议都未占用
+     * @param ttl      租期(毫秒)，不大于0时使用默认租期
+     * @return 租约，空闲端口不足时返回null (不做部分分配)
+     * @throws IllegalArgumentException 端口数超出单次上限
+     */
+    public synchronized PortLease allocate(int from, int to, int count, String protocol, long ttl, String owner) {
+        if (count <= 0 || count > maxPorts) {
+            throw new IllegalArgumentException("Port count must be between 1 and " + maxPorts);
+        }
+        long now = System.currentTimeMillis();
+        expire(now);
+        if (leasedCount + count > maxLeasedPorts) {
+            return null;
+        }
+
+        PortOccupancy occupancy = portScanService.getSnapshot().getOccupancy();
+        int start = cursor > from && cursor <= to ? cursor : from;
+        int[] ports = occupancy.getFree(protocol, start, to, count, leased);
+        int next = ports.length > 0 ? ports[ports.length - 1] + 1 : start;
+        if (ports.length < count && start > from) {
+            int[] wrapped = occupancy.getFree(protocol, from, start - 1, count - ports.length, leased);
+            if (wrapped.length > 0) {
+                next = wrapped[wrapped.length - 1] + 1;
+            }
+            // 回绕部分的端口都小于 start，放在前面保持升序
+            int[] merged = new int[wrapped.length + ports.length];
+            System.arraycopy(wrapped, 0, merged, 0, wrapped.length);
+            System.arraycopy(ports, 0, merged, wrapped.length, ports.length);
+            ports = merged;
+        }
+        if (ports.length < count) {
+            return null;
+        }
+        cursor = next;
+
+        long leaseTtl = ttl > 0 ? Math.min(ttl, maxTtl) : defaultTtl;
+        PortLease lease = new PortLease(UUID.randomUUID().toString(), owner, protocol, ports, now, now + leaseTtl);
+        for (int port : ports) {
+            leased[port >>> 6] |= 1L << port;
+            portLeases[port] = lease;
+        }
+        leasedCount += ports.length;
+        leases.put(lease.getLeaseId(), lease);
+        expiry.add(lease);
+        log.debug("Leased ports {} to {} for {}ms", ports, owner, leaseTtl);
+        return lease;
+    }
+
+    /**
+     * 提前结束租约，归还未被监听的端口
+     *
+     * @return 结束的租约，不存在或已结束时返回null
+     */
+    public synchronized PortLease release(String leaseId) {
+        expire(System.currentTimeMillis());
+        PortLease lease = leases.get(leaseId);
+        if (lease == null) {
+            return null;
+        }
+        finish(lease, "RELEASED");
+        return lease;
+    }
+
+    public synchronized PortLease getLease(String leaseId) {
+        expire(System.currentTimeMillis());
+        return leases.get(leaseId);
+    }
+
+    /**
+     * 当前有效的租约
+     */
+    public synchronized List<PortLease> getLeases() {
+        expire(System.currentTimeMillis());
+        return new ArrayList<>(leases.values());
+    }
+
+    /**
+     * occupancy 中 [from, to] 内最小的 count 个空闲且未租出的端口，只查询不租出
+     */
+    public synchronized int[] findFree(PortOccupancy occupancy, String protocol, int from, int to, int count) {
+        expire(System.currentTimeMillis());
+        return occupancy.getFree(protocol, from, to, count, leased);
+    }
+
+    public synchronized int getLeasedCount() {
+        return leasedCount;
+    }
+
+    @EventListener
+    public synchronized void onPortDiff(PortDiff diff) {
+        for (PortInfo portInfo : diff.getAdded()) {
+            Integer port = portInfo.getPort();
+            if (port == null || port < 0 || port > PortOccupancy.MAX_PORT) {
+                continue;
+            }
+            PortLease lease = portLeases[port];
+            if (lease == null || !lease.matches(portInfo.getProtocol())) {
+                continue;
+            }
+            boolean last = lease.bind(port);
+            unlease(port);
+            if (last) {
+                leases.remove(lease.getLeaseId());
+                lease.finish("BOUND");
+            }
+        }
+        expire(System.currentTimeMillis());
+    }
+
+    private void expire(long now) {
+        PortLease lease;
+        while ((lease = expiry.peek()) != null && lease.getExpiresAt() <= now) {
+            expiry.poll();
+            if (lease.isActive()) {
+                finish(lease, "EXPIRED");
+            }
+        }
+    }
+
+    private void finish(PortLease lease, String status) {
+        for (int port : lease.getPorts()) {
+            if (portLeases[port] == lease) {
+                unlease(port);
+            }
+        }
+        leases.remove(lease.getLeaseId());
+        lease.finish(status);
+    }
+
+    private void unlease(int port) {
+        leased[port >>> 6] &= ~(1L << port);
+        portLeases[port] = null;
+        leasedCount--;
+    }
+}
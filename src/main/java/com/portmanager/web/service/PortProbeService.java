@@ -0,0 +1,429 @@
+package com.portmanager.web.service;
+
+import com.portmanager.web.model.PortInfo;
+import com.portmanager.web.model.PortOccupancy;
+import com.portmanager.web.model.PortSnapshot;
+import com.portmanager.web.model.ProbeResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 主动探测
+ * 扫描器依赖系统的socket表 (lsof / netstat / /proc)，非 root 运行时看不到其他用户进程的监听，
+ * 也看不到经由容器转发等方式暴露的端口。这里直接向本机地址的端口发起非阻塞连接:
+ * - 所有连接注册在同一个 Selector 上，同时进行的连接数不超过 concurrency，每个连接有各自的超时
+ * - 以 SO_LINGER=0 关闭，连上的端口直接发送 RST，不留下 TIME_WAIT
+ * - 连接到自身临时端口 (TCP 自连接) 的情况按未监听处理
+ * 探测结束后与快照对照，快照中没有的端口先用 {@link PortScanService#probePort} 单独扫描一次
+ * (扫描之后才出现的监听会被合并到快照)，仍找不到的记为 unseen。
+ */
+@Service
+public class PortProbeService {
+
+    private static final Logger log = LoggerFactory.getLogger(PortProbeService.class);
+
+    @Autowired
+    private PortScanService portScanService;
+
+    /**
+     * 是否定时探测 port-manager.probe.ports
+     */
+    @Value("${port-manager.probe.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 定时探测间隔(毫秒)
+     */
+    @Value("${port-manager.probe.interval:60000}")
+    private long interval;
+
+    /**
+     * 定时探测的端口，逗号分隔的端口或范围 (如 80,443,3000-3999)，默认为常用端口
+     */
+    @Value("${port-manager.probe.ports:${port-manager.scan.common-ports:}}")
+    private String defaultPorts;
+
+    @Value("${port-manager.probe.host:127.0.0.1}")
+    private String host;
+
+    /**
+     * 同时进行的连接数 (每个连接占用一个文件描述符)
+     */
+    @Value("${port-manager.probe.concurrency:256}")
+    private int concurrency;
+
+    /**
+     * 单个连接的超时(毫秒)
+     */
+    @Value("${port-manager.probe.connect-timeout:200}")
+    private long connectTimeout;
+
+    /**
+     * 单次探测的总时限(毫秒)，超出后未完成的端口计入 failed
+     */
+    @Value("${port-manager.probe.timeout:10000}")
+    private long timeout;
+
+    /**
+     * 对照快照时最多单独扫描的端口数
+     */
+    @Value("${port-manager.probe.max-rescans:32}")
+    private int maxRescans;
+
+    private int[] ports;
+    private volatile ProbeResult lastResult;
+
+    /**
+     * 定时探测使用独立线程，一次探测最长占用 timeout 加上单独扫描的时间，不占用扫描调度线程池
+     */
+    private ScheduledExecutorService probeExecutor;
+
+    @PostConstruct
+    public void init() {
+        ports = parsePorts(defaultPorts);
+        if (enabled && ports != null && ports.length > 0) {
+            probeExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "port-probe");
+                thread.setDaemon(true);
+                return thread;
+            });
+            probeExecutor.scheduleWithFixedDelay(this::scheduledProbe, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (probeExecutor != null) {
+            probeExecutor.shutdownNow();
+        }
+    }
+
+    private void scheduledProbe() {
+        if (portScanService.isWarming()) {
+            return;
+        }
+        try {
+            probe(ports);
+        } catch (IOException e) {
+            log.warn("Active probe failed: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            // 异常会取消后续的定时执行
+            log.error("Active probe failed", e);
+        }
+    }
+
+    /**
+     * 探测 port-manager.probe.ports
+     */
+    public ProbeResult probeDefault() throws IOException {
+        return probe(ports);
+    }
+
+    /**
+     * 探测 [from, to]
+     */
+    public ProbeResult probeRange(int from, int to) throws IOException {
+        int[] range = new int[to - from + 1];
+        for (int i = 0; i < range.length; i++) {
+            range[i] = from + i;
+        }
+        return probe(range);
+    }
+
+    /**
+     * 探测指定端口并与快照对照，同一时间只进行一次探测
+     */
+    public synchronized ProbeResult probe(int[] targets) throws IOException {
+        InetAddress address = InetAddress.getByName(host);
+        long startTime = System.currentTimeMillis();
+        long start = System.nanoTime();
+        Sweep sweep = connect(address, targets);
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        ProbeResult result = reconcile(targets, sweep, startTime, durationMs);
+        lastResult = result;
+        log.debug("Probed {} ports on {} in {}ms: {} open, {} refused, {} timed out, {} failed, {} unseen, {} unreachable",
+                targets.length, host, durationMs, result.getOpen().length, sweep.refused, sweep.timedOut,
+                sweep.failed, result.getUnseen().length, result.getUnreachable().length);
+        return result;
+    }
+
+    /**
+     * 上次探测的结果，尚未探测时为null
+     */
+    public ProbeResult getLastResult() {
+        return lastResult;
+    }
+
+    private Sweep connect(InetAddress address, int[] targets) throws IOException {
+        Sweep sweep = new Sweep();
+        long connectTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(connectTimeout);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        // 按发起顺序排列，超时时间相同，队首总是最先到期
+        ArrayDeque<SelectionKey> pending = new ArrayDeque<>();
+        int next = 0;
+        int inFlight = 0;
+
+        try (Selector selector = Selector.open()) {
+            while ((next < targets.length || inFlight > 0) && System.nanoTime() < deadline) {
+                while (next < targets.length && inFlight < concurrency) {
+                    int port = targets[next];
+                    SocketChannel channel;
+                    try {
+                        channel = SocketChannel.open();
+                    } catch (IOException e) {
+                        // 文件描述符不足时等待进行中的连接完成
+                        if (inFlight > 0) {
+                            break;
+                        }
+                        throw e;
+                    }
+                    next++;
+                    try {
+                        channel.configureBlocking(false);
+                        channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+                        if (channel.connect(new InetSocketAddress(address, port))) {
+                            sweep.connected(channel, port);
+                            channel.close();
+                        } else {
+                            pending.addLast(channel.register(selector, SelectionKey.OP_CONNECT,
+                                    new long[]{port, System.nanoTime() + connectTimeoutNanos}));
+                            inFlight++;
+                        }
+                    } catch (ConnectException e) {
+                        sweep.refused++;
+                        channel.close();
+                    } catch (IOException e) {
+                        sweep.failed++;
+                        channel.close();
+                    }
+                }
+
+                // 本机连接通常在 connect 时就被拒绝，没有进行中的连接时不等待
+                if (pending.isEmpty()) {
+                    selector.selectNow();
+                } else {
+                    long waitNanos = ((long[]) pending.peekFirst().attachment())[1] - System.nanoTime();
+                    selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+                }
+
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    SocketChannel channel = (SocketChannel) key.channel();
+                    int port = (int) ((long[]) key.attachment())[0];
+                    try {
+                        if (channel.finishConnect()) {
+                            sweep.connected(channel, port);
+                        }
+                    } catch (ConnectException e) {
+                        sweep.refused++;
+                    } catch (IOException e) {
+                        sweep.failed++;
+                    }
+                    channel.close();
+                    inFlight--;
+                }
+
+                // 已关闭的连接其 key 无效，直接出队
+                long now = System.nanoTime();
+                SelectionKey head;
+                while ((head = pending.peekFirst()) != null
+                        && (!head.isValid() || ((long[]) head.attachment())[1] <= now)) {
+                    pending.pollFirst();
+                    if (head.isValid()) {
+                        head.channel().close();
+                        sweep.timedOut++;
+                        inFlight--;
+                    }
+                }
+            }
+
+            // 超出总时限
+            for (SelectionKey key : pending) {
+                if (key.isValid()) {
+                    key.channel().close();
+                    sweep.failed++;
+                }
+            }
+            sweep.failed += targets.length - next;
+        }
+        return sweep;
+    }
+
+    private ProbeResult reconcile(int[] targets, Sweep sweep, long startTime, long durationMs) {
+        long[] probed = new long[PortOccupancy.WORDS];
+        int from = PortOccupancy.MAX_PORT;
+        int to = 0;
+        for (int port : targets) {
+            probed[port >>> 6] |= 1L << port;
+            from = Math.min(from, port);
+            to = Math.max(to, port);
+        }
+
+        PortSnapshot snapshot = portScanService.getSnapshot();
+        PortOccupancy occupancy = snapshot.getOccupancy();
+        int[] open = sweep.openPorts();
+
+        int[] confirmed = new int[open.length];
+        int[] unseen = new int[open.length];
+        int confirmedCount = 0;
+        int unseenCount = 0;
+        int rescans = 0;
+        for (int port : open) {
+            if (occupancy.isOccupied("TCP", port)) {
+                continue;
+            }
+            if (rescans++ < maxRescans && hasTcp(portScanService.probePort(port))) {
+                confirmed[confirmedCount++] = port;
+            } else {
+                unseen[unseenCount++] = port;
+            }
+        }
+
+        int[] listening = from <= to ? occupancy.getOccupied("TCP", from, to) : new int[0];
+        int[] unreachable = new int[listening.length];
+        int unreachableCount = 0;
+        for (int port : listening) {
+            if ((probed[port >>> 6] & (1L << port)) == 0 || sweep.isOpen(port)) {
+                continue;
+            }
+            for (PortInfo portInfo : snapshot.getPortsByPort(port)) {
+                if ("TCP".equalsIgnoreCase(portInfo.getProtocol()) && reachable(portInfo.getLocalAddress())) {
+                    unreachable[unreachableCount++] = port;
+                    break;
+                }
+            }
+        }
+
+        return new ProbeResult(host, targets.length, open, sweep.refused, sweep.timedOut, sweep.failed,
+                startTime, durationMs, snapshot.getVersion(),
+                Arrays.copyOf(confirmed, confirmedCount), Arrays.copyOf(unseen, unseenCount),
+                Arrays.copyOf(unreachable, unreachableCount));
+    }
+
+    private static boolean hasTcp(List<PortInfo> sockets) {
+        for (PortInfo portInfo : sockets) {
+            if ("TCP".equalsIgnoreCase(portInfo.getProtocol())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 监听地址能否从探测地址连上: 通配地址或与探测地址相同
+     */
+    private boolean reachable(String localAddress) {
+        if (localAddress == null) {
+            return true;
+        }
+        int colon = localAddress.lastIndexOf(':');
+        String address = colon >= 0 ? localAddress.substring(0, colon) : localAddress;
+        if (address.startsWith("[") && address.endsWith("]")) {
+            address = address.substring(1, address.length() - 1);
+        }
+        return address.isEmpty() || "*".equals(address) || "0.0.0.0".equals(address)
+                || "::".equals(address) || host.equals(address);
+    }
+
+    /**
+     * 解析逗号分隔的端口或范围，返回升序去重的端口，忽略无效项
+     */
+    static int[] parsePorts(String spec) {
+        long[] bits = new long[PortOccupancy.WORDS];
+        int count = 0;
+        if (spec != null) {
+            for (String item : spec.split(",")) {
+                String[] bounds = item.trim().split("-", -1);
+                try {
+                    int from = Integer.parseInt(bounds[0].trim());
+                    int to = bounds.length == 2 ? Integer.parseInt(bounds[1].trim()) : from;
+                    if (bounds.length > 2 || from < 1 || to > PortOccupancy.MAX_PORT) {
+                        continue;
+                    }
+                    for (int port = from; port <= to; port++) {
+                        if ((bits[port >>> 6] & (1L << port)) == 0) {
+                            bits[port >>> 6] |= 1L << port;
+                            count++;
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring invalid probe port: {}", item);
+                }
+            }
+        }
+        int[] ports = new int[count];
+        int i = 0;
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                ports[i++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return ports;
+    }
+
+    /**
+     * 一次探测的连接结果
+     */
+    private static class Sweep {
+        private final long[] open = new long[PortOccupancy.WORDS];
+        private int openCount;
+        private int refused;
+        private int timedOut;
+        private int failed;
+
+        void connected(SocketChannel channel, int port) throws IOException {
+            // 目标端口恰好是本次连接的临时端口时会连到自己
+            if (((InetSocketAddress) channel.getLocalAddress()).getPort() == port) {
+                refused++;
+                return;
+            }
+            if (!isOpen(port)) {
+                open[port >>> 6] |= 1L << port;
+                openCount++;
+            }
+        }
+
+        boolean isOpen(int port) {
+            return (open[port >>> 6] & (1L << port)) != 0;
+        }
+
+        int[] openPorts() {
+            int[] ports = new int[openCount];
+            int i = 0;
+            for (int w = 0; w < open.length; w++) {
+                long word = open[w];
+                while (word != 0) {
+                    ports[i++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return ports;
+        }
+    }
+}
@@ -1,19 +1,26 @@
 package com.portmanager.web.service;
 
+import com.portmanager.web.model.PortDiff;
 import com.portmanager.web.model.PortInfo;
+import com.portmanager.web.model.PortSnapshot;
+import com.portmanager.web.model.SocketKey;
 import com.portmanager.web.scanner.PortScannerFactory;
+import com.portmanager.web.scanner.ScanMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 端口扫描服务
@@ -26,143 +33,339 @@ public class PortScanService {
     @Autowired
     private PortScannerFactory portScannerFactory;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ScanMetrics scanMetrics;
+
+    @Autowired
+    private PortJournal portJournal;
+
+    @Autowired
+    private StartupMetrics startupMetrics;
+
+    /**
+     * 当前端口快照，每次扫描整体替换
+     */
+    private final AtomicReference<PortSnapshot> snapshot = new AtomicReference<>(PortSnapshot.EMPTY);
+
+    /**
+     * 当前快照的搜索索引，随快照发布增量更新
+     */
+    private final PortSearchIndex searchIndex = new PortSearchIndex();
+
+    /**
+     * 最近的快照差异，按版本连续排列
+     */
+    private final ConcurrentLinkedDeque<PortDiff> recentDiffs = new ConcurrentLinkedDeque<>();
+
+    /**
+     * 保留的差异数量，超出窗口的客户端需要全量同步
+     */
+    @Value("${port-manager.scan.diff-window:120}")
+    private int diffWindow;
+
     /**
-     * 端口信息缓存 (port -> PortInfo)
+     * 首次扫描完成前是否返回从日志恢复的快照，为false时返回空列表
      */
-    private final Map<Integer, PortInfo> portCache = new ConcurrentHashMap<>();
+    @Value("${port-manager.scan.serve-restored:true}")
+    private boolean serveRestored;
 
     /**
-     * 上次扫描时间
+     * 首次全量扫描尚未完成
      */
-    private long lastScanTime = 0;
+    private volatile boolean warming = true;
+
+    /**
+     * 当前快照是恢复的快照且不对外返回
+     */
+    private volatile boolean hideRestored;
 
     @PostConstruct
     public void init() {
         log.info("Port scan service initialized");
-        // 启动时立即扫描一次
-        scanAllPorts();
+        // 只恢复上次的状态，首次扫描由 ScanScheduler 在应用启动后异步执行，不阻塞启动
+        long start = System.currentTimeMillis();
+        PortSnapshot restored = portJournal.restore();
+        if (restored != null) {
+            restore(restored);
+            startupMetrics.restored(System.currentTimeMillis() - start);
+        }
     }
 
     /**
-     * 定时扫描所有端口 (每5秒)
+     * 以日志中恢复的快照作为当前快照，之后的扫描与其比较产生差异
      */
-    @Scheduled(fixedDelay = 5000)
-    public void scheduledScan() {
-        scanAllPorts();
+    private synchronized void restore(PortSnapshot restored) {
+        searchIndex.rebuild(restored.getPorts());
+        snapshot.set(restored);
+        hideRestored = !serveRestored;
+        log.info("Restored {} ports from journal, snapshot version {}", restored.size(), restored.getVersion());
     }
 
     /**
      * 扫描所有端口
      */
     public List<PortInfo> scanAllPorts() {
+        long start = System.nanoTime();
+        scanMetrics.beginScan();
         try {
             long startTime = System.currentTimeMillis();
             List<PortInfo> portList = portScannerFactory.getScanner().scanPorts();
 
-            // 更新缓存
-            portCache.clear();
-            for (PortInfo portInfo : portList) {
-                portCache.put(portInfo.getPort(), portInfo);
+            long scanTime = System.currentTimeMillis();
+            long publishStart = System.nanoTime();
+            PortSnapshot published = publish(startTime, scanTime, portList);
+            scanMetrics.recordPhase(ScanMetrics.PHASE_PUBLISH, System.nanoTime() - publishStart);
+            if (warming) {
+                hideRestored = false;
+                warming = false;
+                startupMetrics.snapshotPublished();
             }
+            long duration = scanTime - startTime;
 
-            lastScanTime = System.currentTimeMillis();
-            long duration = lastScanTime - startTime;
-
-            log.debug("Scanned {} ports in {}ms", portList.size(), duration);
+            log.debug("Scanned {} ports in {}ms, snapshot version {}", portList.size(), duration, published.getVersion());
             return portList;
         } catch (Exception e) {
             log.error("Failed to scan ports: {}", e.getMessage(), e);
             return new ArrayList<>();
+        } finally {
+            scanMetrics.endScan(System.nanoTime() - start);
         }
     }
 
     /**
-     * 获取所有端口信息
+     * 发布新快照并记录与上一快照的差异
+     * 仅写入方串行，读取方始终无锁。
+     * 扫描开始后才单独探测的端口，探测结果比本次扫描读到的更新，保留探测结果及其探测时间，
+     * 避免先开始的全量扫描后发布、覆盖探测结果导致端口状态来回跳变
+     *
+     * @param scanStart 全量扫描开始时间
      */
-    public List<PortInfo> getAllPorts() {
-        return new ArrayList<>(portCache.values());
+    private synchronized PortSnapshot publish(long scanStart, long scanTime, List<PortInfo> portList) {
+        PortSnapshot previous = snapshot.get();
+        Map<Integer, Long> probeTimes = new HashMap<>();
+        for (Map.Entry<Integer, Long> entry : previous.getProbeTimes().entrySet()) {
+            if (entry.getValue() > scanStart) {
+                probeTimes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (!probeTimes.isEmpty()) {
+            List<PortInfo> merged = new ArrayList<>(portList.size());
+            for (PortInfo portInfo : portList) {
+                if (portInfo.getPort() == null || !probeTimes.containsKey(portInfo.getPort())) {
+                    merged.add(portInfo);
+                }
+            }
+            for (Integer port : probeTimes.keySet()) {
+                merged.addAll(previous.getPortsByPort(port));
+            }
+            portList = merged;
+        }
+        return publishSnapshot(previous,
+                new PortSnapshot(previous.getVersion() + 1, scanTime, portList, probeTimes), scanTime);
     }
 
     /**
-     * 查询指定端口
+     * 替换快照并分发差异，调用方需持有锁
+     *
+     * @param time 变化的观测时间
      */
-    public PortInfo getPort(int port) {
-        return portCache.get(port);
+    private PortSnapshot publishSnapshot(PortSnapshot previous, PortSnapshot current, long time) {
+        PortDiff diff = PortDiff.between(previous, current, time);
+
+        // 先记录差异再替换快照，保证可见的版本总能找到对应差异
+        recentDiffs.addLast(diff);
+        while (recentDiffs.size() > diffWindow) {
+            recentDiffs.pollFirst();
+        }
+        searchIndex.apply(diff);
+        portJournal.append(diff);
+        snapshot.set(current);
+        // 在锁内通知，保证监听方按版本顺序收到差异
+        eventPublisher.publishEvent(diff);
+
+        if (diff.hasChanges()) {
+            log.debug("Snapshot {} -> {}: {} added, {} removed, {} changed, {} counts", diff.getFromVersion(),
+                    diff.getToVersion(), diff.getAdded().size(), diff.getRemoved().size(), diff.getChanged().size(),
+                    diff.getCounts().size());
+        }
+        return current;
     }
 
     /**
-     * 搜索端口 (支持端口号、进程名、PID)
+     * 单独探测一个端口并合并到当前快照，不做全量扫描
+     *
+     * @return 该端口上的全部socket
      */
-    public List<PortInfo> searchPorts(String keyword) {
-        if (keyword == null || keyword.trim().isEmpty()) {
-            return getAllPorts();
-        }
+    public List<PortInfo> probePort(int port) {
+        // 以开始探测的时间作为探测时间，与全量扫描的开始时间比较新旧
+        long probeTime = System.currentTimeMillis();
+        List<PortInfo> sockets = portScannerFactory.getScanner().scanPort(port);
+        mergeProbe(port, sockets, probeTime);
+        return sockets;
+    }
 
-        String lowerKeyword = keyword.toLowerCase().trim();
+    /**
+     * 用探测结果替换快照中该端口的socket
+     * socket和连接数都无变化时只记录该端口的探测时间，不产生新版本
+     */
+    private synchronized void mergeProbe(int port, List<PortInfo> sockets, long probeTime) {
+        PortSnapshot previous = snapshot.get();
+        List<PortInfo> portList = new ArrayList<>(previous.size() + sockets.size());
+        for (PortInfo portInfo : previous.getPorts()) {
+            if (portInfo.getPort() == null || portInfo.getPort() != port) {
+                portList.add(portInfo);
+            }
+        }
+        portList.addAll(sockets);
+        Map<Integer, Long> probeTimes = new HashMap<>(previous.getProbeTimes());
+        probeTimes.put(port, probeTime);
 
-        return portCache.values().stream()
-                .filter(portInfo -> matchesKeyword(portInfo, lowerKeyword))
-                .collect(Collectors.toList());
+        PortSnapshot probed = new PortSnapshot(previous.getVersion(), previous.getScanTime(), portList, probeTimes);
+        PortDiff diff = PortDiff.between(previous, probed, probeTime);
+        if (!diff.hasChanges() && !diff.hasCountChanges()) {
+            snapshot.set(probed);
+            return;
+        }
+        publishSnapshot(previous, new PortSnapshot(previous.getVersion() + 1, previous.getScanTime(),
+                portList, probeTimes), probeTime);
     }
 
     /**
-     * 判断端口信息是否匹配关键字
+     * 获取指定版本之后的合并差异
+     *
+     * @param since 客户端持有的快照版本
+     * @return 合并后的差异；版本已超出保留窗口(或未知)时返回null，客户端需全量同步
      */
-    private boolean matchesKeyword(PortInfo portInfo, String keyword) {
-        // 匹配端口号
-        if (String.valueOf(portInfo.getPort()).contains(keyword)) {
-            return true;
+    public PortDiff getChangesSince(long since) {
+        List<PortDiff> diffs = new ArrayList<>();
+        long expected = since;
+        for (PortDiff diff : recentDiffs) {
+            if (diff.getToVersion() <= since) {
+                continue;
+            }
+            if (diff.getFromVersion() != expected) {
+                return null;
+            }
+            diffs.add(diff);
+            expected = diff.getToVersion();
         }
 
-        // 匹配PID
-        if (portInfo.getPid() != null && String.valueOf(portInfo.getPid()).contains(keyword)) {
-            return true;
+        if (diffs.isEmpty()) {
+            PortSnapshot current = snapshot.get();
+            if (since != current.getVersion()) {
+                return null;
+            }
+            return new PortDiff(since, since, current.getScanTime(),
+                    Collections.<PortInfo>emptyList(), Collections.<PortInfo>emptyList(),
+                    Collections.<PortInfo>emptyList());
         }
+        return PortDiff.merge(diffs);
+    }
 
-        // 匹配进程名
-        if (portInfo.getProcessName() != null &&
-                portInfo.getProcessName().toLowerCase().contains(keyword)) {
-            return true;
-        }
+    /**
+     * 获取指定时间的快照 (由日志重放)
+     *
+     * @param time 毫秒时间戳
+     * @return 超出日志范围时返回null
+     */
+    public PortSnapshot getSnapshotAt(long time) {
+        return portJournal.getSnapshotAt(time);
+    }
+
+    /**
+     * 获取当前快照
+     */
+    public PortSnapshot getSnapshot() {
+        return hideRestored ? PortSnapshot.EMPTY : snapshot.get();
+    }
+
+    /**
+     * 首次全量扫描是否尚未完成 (期间返回的是恢复的快照或空列表)
+     */
+    public boolean isWarming() {
+        return warming;
+    }
+
+    /**
+     * 获取所有端口信息 (只读)
+     */
+    public List<PortInfo> getAllPorts() {
+        return getSnapshot().getPorts();
+    }
+
+    /**
+     * 查询指定端口
+     */
+    public PortInfo getPort(int port) {
+        return getSnapshot().getPort(port);
+    }
 
-        // 匹配命令行
-        if (portInfo.getCommandLine() != null &&
-                portInfo.getCommandLine().toLowerCase().contains(keyword)) {
-            return true;
+    /**
+     * 查询指定端口上的全部socket
+     */
+    public List<PortInfo> getPortsByPort(int port) {
+        return getSnapshot().getPortsByPort(port);
+    }
+
+    /**
+     * 查询指定端口上的全部socket，快照中该端口的数据早于 maxAgeMs 时先单独探测该端口
+     */
+    public List<PortInfo> getPortsByPort(int port, long maxAgeMs) {
+        if (port < 0 || port > 65535) {
+            return Collections.emptyList();
+        }
+        PortSnapshot current = getSnapshot();
+        if (System.currentTimeMillis() - current.getPortScanTime(port) <= maxAgeMs) {
+            return current.getPortsByPort(port);
         }
+        return probePort(port);
+    }
 
-        return false;
+    /**
+     * 查询指定进程的全部socket
+     */
+    public List<PortInfo> getPortsByPid(long pid) {
+        return getSnapshot().getPortsByPid(pid);
+    }
+
+    /**
+     * 搜索端口 (支持端口号、进程名、PID、命令行)
+     * 通过 n-gram 索引查找，不再逐个端口转小写比较；命中的socket从当前快照取值，与其他查询返回的数据一致
+     */
+    public List<PortInfo> searchPorts(String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return getAllPorts();
+        }
+        if (hideRestored) {
+            return Collections.emptyList();
+        }
+        List<SocketKey> keys = searchIndex.search(keyword.trim());
+        PortSnapshot current = snapshot.get();
+        List<PortInfo> result = new ArrayList<>(keys.size());
+        for (SocketKey key : keys) {
+            // 索引先于快照更新，刚加入索引的socket可能还不在快照中
+            PortInfo portInfo = current.getSocket(key);
+            if (portInfo != null) {
+                result.add(portInfo);
+            }
+        }
+        return result;
     }
 
     /**
      * 获取上次扫描时间
      */
     public long getLastScanTime() {
-        return lastScanTime;
+        return getSnapshot().getScanTime();
     }
 
     /**
      * 获取端口数量统计
      */
     public Map<String, Integer> getStatistics() {
-        Map<String, Integer> stats = new ConcurrentHashMap<>();
-        stats.put("total", portCache.size());
-
-        int devProcessCount = (int) portCache.values().stream()
-                .filter(p -> p.getIsDevelopmentProcess() != null && p.getIsDevelopmentProcess())
-                .count();
-        stats.put("developmentProcesses", devProcessCount);
-
-        long tcpCount = portCache.values().stream()
-                .filter(p -> "TCP".equalsIgnoreCase(p.getProtocol()))
-                .count();
-        stats.put("tcp", (int) tcpCount);
-
-        long udpCount = portCache.values().stream()
-                .filter(p -> "UDP".equalsIgnoreCase(p.getProtocol()))
-                .count();
-        stats.put("udp", (int) udpCount);
-
-        return stats;
+        return getSnapshot().getStatistics();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,420 @@
+package com.portmanager.web.service;
+
+import com.portmanager.web.model.PortDiff;
+import com.portmanager.web.model.PortInfo;
+import com.portmanager.web.model.SocketKey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 端口搜索的 n-gram 倒排索引
+ * - 索引字段: 端口号、PID、进程名、命令行，不区分大小写的子串匹配 (不跨字段)
+ * - 字段值按内容去重为"文本"，同一进程的多个socket共用同一条命令行文本，只建一次索引、只校验一次
+ * - 每个文本的 1~3-gram 记录在倒排表中；长度不超过3的查询直接取倒排表，
+ *   更长的查询取各 trigram 倒排表的交集后在候选文本上校验
+ * - 随每次快照发布按差异增量更新；被删除的文本延迟清理，死文本过多时压缩倒排表
+ * - 只返回命中socket的 {@link SocketKey}，由调用方到当前快照中取最新的端口信息 (连接数等不触发索引更新的字段)
+ * 读写锁保护，搜索之间互不阻塞。
+ */
+public final class PortSearchIndex {
+
+    private static final int MAX_GRAM = 3;
+
+    /**
+     * 死文本超过此数量且多于活文本时压缩
+     */
+    private static final int COMPACT_THRESHOLD = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 文档: 一个socket，docId -> socket及其引用的文本
+     */
+    private final List<SocketKey> docs = new ArrayList<>();
+    private final List<int[]> docTexts = new ArrayList<>();
+    private final List<Integer> freeDocIds = new ArrayList<>();
+    private final Map<SocketKey, Integer> docIdByKey = new HashMap<>();
+
+    /**
+     * 文本: 去重后的字段值，textId -> 文本
+     */
+    private final List<Text> texts = new ArrayList<>();
+    private final Map<String, Integer> textIds = new HashMap<>();
+    private int deadTexts;
+
+    /**
+     * n-gram -> 包含它的 textId (升序)
+     */
+    private final Map<Long, IntList> postings = new HashMap<>();
+
+    /**
+     * 用全部端口重建索引
+     */
+    public void rebuild(Collection<PortInfo> ports) {
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            docTexts.clear();
+            freeDocIds.clear();
+            docIdByKey.clear();
+            texts.clear();
+            textIds.clear();
+            postings.clear();
+            deadTexts = 0;
+            for (PortInfo portInfo : ports) {
+                add(portInfo);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按快照差异增量更新
+     */
+    public void apply(PortDiff diff) {
+        lock.writeLock().lock();
+        try {
+            for (PortInfo portInfo : diff.getRemoved()) {
+                remove(SocketKey.of(portInfo));
+            }
+            for (PortInfo portInfo : diff.getChanged()) {
+                remove(SocketKey.of(portInfo));
+                add(portInfo);
+            }
+            for (PortInfo portInfo : diff.getAdded()) {
+                remove(SocketKey.of(portInfo));
+                add(portInfo);
+            }
+            if (deadTexts > COMPACT_THRESHOLD && deadTexts > texts.size() - deadTexts) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 子串搜索 (不区分大小写)
+     *
+     * @param keyword 已去除首尾空白的非空关键字
+     * @return 匹配的socket
+     */
+    public List<SocketKey> search(String keyword) {
+        String query = toLowerCase(keyword);
+
+        lock.readLock().lock();
+        try {
+            BitSet matchedDocs = new BitSet(docs.size());
+            for (int textId : candidateTexts(query)) {
+                Text text = texts.get(textId);
+                if (text.refs.isEmpty()) {
+                    continue;
+                }
+                if (query.length() <= MAX_GRAM || containsLowerCase(text.value, query)) {
+                    for (int docId : text.refs.keySet()) {
+                        matchedDocs.set(docId);
+                    }
+                }
+            }
+
+            List<SocketKey> result = new ArrayList<>(matchedDocs.cardinality());
+            for (int docId = matchedDocs.nextSetBit(0); docId >= 0; docId = matchedDocs.nextSetBit(docId + 1)) {
+                result.add(docs.get(docId));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已索引的socket数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docIdByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 可能包含查询串的文本
+     * 查询不超过3个字符时倒排表即为精确结果
+     */
+    private int[] candidateTexts(String query) {
+        if (query.length() <= MAX_GRAM) {
+            IntList list = postings.get(gram(query, 0, query.length()));
+            return list != null ? list.toArray() : new int[0];
+        }
+
+        List<IntList> lists = new ArrayList<>();
+        for (int i = 0; i + MAX_GRAM <= query.length(); i++) {
+            IntList list = postings.get(gram(query, i, MAX_GRAM));
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        int[] candidates = lists.get(0).toArray();
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            IntList list = lists.get(i);
+            if (list == lists.get(i - 1)) {
+                continue;
+            }
+            int kept = 0;
+            int from = 0;
+            for (int j = 0; j < count; j++) {
+                int pos = Arrays.binarySearch(list.values, from, list.size, candidates[j]);
+                if (pos >= 0) {
+                    candidates[kept++] = candidates[j];
+                    from = pos + 1;
+                } else {
+                    from = -pos - 1;
+                }
+            }
+            count = kept;
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    private void add(PortInfo portInfo) {
+        SocketKey key = SocketKey.of(portInfo);
+        int docId;
+        if (freeDocIds.isEmpty()) {
+            docId = docs.size();
+            docs.add(key);
+            docTexts.add(null);
+        } else {
+            docId = freeDocIds.remove(freeDocIds.size() - 1);
+            docs.set(docId, key);
+        }
+
+        List<String> fields = new ArrayList<>(4);
+        fields.add(String.valueOf(portInfo.getPort()));
+        if (portInfo.getPid() != null) {
+            fields.add(String.valueOf(portInfo.getPid()));
+        }
+        if (portInfo.getProcessName() != null && !portInfo.getProcessName().isEmpty()) {
+            fields.add(portInfo.getProcessName());
+        }
+        if (portInfo.getCommandLine() != null && !portInfo.getCommandLine().isEmpty()) {
+            fields.add(portInfo.getCommandLine());
+        }
+
+        int[] ids = new int[fields.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = textId(fields.get(i));
+            // 同一文本可能出现在多个字段 (如端口号与PID相同)，按引用计数
+            texts.get(ids[i]).refs.merge(docId, 1, Integer::sum);
+        }
+        docTexts.set(docId, ids);
+        docIdByKey.put(key, docId);
+    }
+
+    private void remove(SocketKey key) {
+        Integer docId = docIdByKey.remove(key);
+        if (docId == null) {
+            return;
+        }
+        for (int textId : docTexts.get(docId)) {
+            Text text = texts.get(textId);
+            text.refs.computeIfPresent(docId, (k, n) -> n > 1 ? n - 1 : null);
+            if (text.refs.isEmpty()) {
+                // 倒排表中的条目延迟到压缩时清理，文本重新出现时直接复用
+                deadTexts++;
+            }
+        }
+        docs.set(docId, null);
+        docTexts.set(docId, null);
+        freeDocIds.add(docId);
+    }
+
+    /**
+     * 获取文本ID，新文本建立 n-gram 倒排
+     */
+    private int textId(String value) {
+        Integer existing = textIds.get(value);
+        if (existing != null) {
+            if (texts.get(existing).refs.isEmpty()) {
+                deadTexts--;
+            }
+            return existing;
+        }
+
+        int id = texts.size();
+        texts.add(new Text(value));
+        textIds.put(value, id);
+        for (long gram : distinctGrams(value)) {
+            // textId 递增，追加后倒排表仍有序
+            postings.computeIfAbsent(gram, k -> new IntList()).add(id);
+        }
+        return id;
+    }
+
+    /**
+     * 清理死文本并重新编号，重新编号保持顺序，倒排表无需排序
+     */
+    private void compact() {
+        int[] remap = new int[texts.size()];
+        List<Text> liveTexts = new ArrayList<>(texts.size() - deadTexts);
+        textIds.clear();
+        for (int i = 0; i < texts.size(); i++) {
+            Text text = texts.get(i);
+            if (text.refs.isEmpty()) {
+                remap[i] = -1;
+            } else {
+                remap[i] = liveTexts.size();
+                textIds.put(text.value, liveTexts.size());
+                liveTexts.add(text);
+            }
+        }
+        texts.clear();
+        texts.addAll(liveTexts);
+        deadTexts = 0;
+
+        postings.values().removeIf(list -> list.remap(remap) == 0);
+        for (int[] ids : docTexts) {
+            if (ids != null) {
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = remap[ids[i]];
+                }
+            }
+        }
+    }
+
+    /**
+     * 文本中所有不同的 1~3-gram
+     */
+    private static long[] distinctGrams(String value) {
+        int length = value.length();
+        long[] grams = new long[length * MAX_GRAM];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            long gram = 0;
+            for (int n = 1; n <= MAX_GRAM && i + n <= length; n++) {
+                gram = (gram << 16) | Character.toLowerCase(value.charAt(i + n - 1));
+                grams[count++] = ((long) n << 48) | gram;
+            }
+        }
+        Arrays.sort(grams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[i] != grams[distinct - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * 已转小写的字符串中 [start, start + n) 的 n-gram 编码
+     */
+    private static long gram(String lowerCase, int start, int n) {
+        long gram = 0;
+        for (int i = start; i < start + n; i++) {
+            gram = (gram << 16) | lowerCase.charAt(i);
+        }
+        return ((long) n << 48) | gram;
+    }
+
+    /**
+     * 逐字符转小写，与建索引时的规则一致
+     */
+    private static String toLowerCase(String value) {
+        char[] chars = new char[value.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(value.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 不区分大小写的子串判断，不生成小写副本
+     */
+    private static boolean containsLowerCase(String text, String lowerNeedle) {
+        int n = lowerNeedle.length();
+        char first = lowerNeedle.charAt(0);
+        for (int i = 0, last = text.length() - n; i <= last; i++) {
+            if (Character.toLowerCase(text.charAt(i)) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < n && Character.toLowerCase(text.charAt(i + j)) == lowerNeedle.charAt(j)) {
+                j++;
+            }
+            if (j == n) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 去重后的字段值
+     */
+    private static final class Text {
+        private final String value;
+
+        /**
+         * docId -> 引用次数，为空时是死文本
+         */
+        private final Map<Integer, Integer> refs = new HashMap<>(2);
+
+        private Text(String value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * 有序 int 列表
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        /**
+         * 按映射重新编号并去掉映射为-1的值
+         *
+         * @return 剩余数量
+         */
+        private int remap(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int mapped = remap[values[i]];
+                if (mapped >= 0) {
+                    values[kept++] = mapped;
+                }
+            }
+            size = kept;
+            if (values.length > 16 && size < values.length / 4) {
+                values = Arrays.copyOf(values, Math.max(size, 4));
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.portmanager.web.service;
+
+import com.portmanager.web.model.PortDiff;
+import com.portmanager.web.model.PortSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 端口变化推送服务 (Server-Sent Events)
+ * 每个订阅者最多只有一个待发送的差异，发送跟不上时新差异与待发送差异合并，不会无限堆积。
+ * 差异和心跳都由推送线程发送，调度线程不会阻塞在慢连接上。
+ */
+@Service
+public class PortStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(PortStreamService.class);
+
+    @Autowired
+    private PortScanService portScanService;
+
+    /**
+     * 推送线程数
+     */
+    @Value("${port-manager.stream.threads:2}")
+    private int threads;
+
+    private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+
+    private ExecutorService sendExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        sendExecutor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "port-stream-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        sendExecutor.shutdownNow();
+    }
+
+    /**
+     * 新建订阅
+     *
+     * @param lastEventId 断线重连时浏览器带回的最后版本号，可为null
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // 先注册再取初始数据，避免两者之间发布的差异丢失；初始数据发出前只合并不发送
+        subscribers.add(subscriber);
+
+        PortDiff initialDiff = null;
+        if (lastEventId != null) {
+            try {
+                initialDiff = portScanService.getChangesSince(Long.parseLong(lastEventId));
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring invalid Last-Event-ID: {}", lastEventId);
+            }
+        }
+
+        try {
+            if (initialDiff != null) {
+                sendDelta(emitter, initialDiff);
+            } else {
+                sendSnapshot(emitter, portScanService.getSnapshot());
+            }
+        } catch (IOException e) {
+            subscribers.remove(subscriber);
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        subscriber.start();
+
+        log.debug("Port stream subscribed, {} subscribers", subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * 当前订阅者数量
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * 收到新的快照差异
+     */
+    @EventListener
+    public void onPortDiff(PortDiff diff) {
+        if (!diff.hasChanges() && !diff.hasCountChanges()) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(diff);
+        }
+    }
+
+    /**
+     * 心跳，同时清理已断开的连接
+     * 只标记待发送，由推送线程发出；上一次发送仍未完成的订阅者不会重复排队
+     */
+    @Scheduled(fixedDelay = 15000)
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.ping();
+        }
+    }
+
+    private void sendSnapshot(SseEmitter emitter, PortSnapshot snapshot) throws IOException {
+        Map<String, Object> data = new HashMap<>();
+        data.put("version", snapshot.getVersion());
+        data.put("data", snapshot.getPorts());
+        data.put("lastScanTime", snapshot.getScanTime());
+        emitter.send(SseEmitter.event()
+                .name("snapshot")
+                .id(String.valueOf(snapshot.getVersion()))
+                .data(data));
+    }
+
+    private void sendDelta(SseEmitter emitter, PortDiff diff) throws IOException {
+        Map<String, Object> data = new HashMap<>();
+        data.put("fromVersion", diff.getFromVersion());
+        data.put("version", diff.getToVersion());
+        data.put("added", diff.getAdded());
+        data.put("removed", diff.getRemoved());
+        data.put("changed", diff.getChanged());
+        data.put("counts", diff.getCounts());
+        data.put("lastScanTime", diff.getScanTime());
+        emitter.send(SseEmitter.event()
+                .name("delta")
+                .id(String.valueOf(diff.getToVersion()))
+                .data(data));
+    }
+
+    /**
+     * 单个订阅者
+     */
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicReference<PortDiff> pending = new AtomicReference<>();
+        private final AtomicBoolean pingPending = new AtomicBoolean();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean started;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * 放入一个差异，与尚未发出的差异合并
+         */
+        private void offer(PortDiff diff) {
+            pending.accumulateAndGet(diff, (current, next) -> {
+                if (current == null) {
+                    return next;
+                }
+                List<PortDiff> diffs = new ArrayList<>(2);
+                diffs.add(current);
+                diffs.add(next);
+                return PortDiff.merge(diffs);
+            });
+            scheduleDrain();
+        }
+
+        /**
+         * 请求发送一次心跳，与尚未发出的心跳合并
+         */
+        private void ping() {
+            pingPending.set(true);
+            scheduleDrain();
+        }
+
+        /**
+         * 初始数据已发出，开始推送差异
+         */
+        private void start() {
+            started = true;
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (started && (pending.get() != null || pingPending.get()) && draining.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                PortDiff diff;
+                boolean sent = false;
+                while ((diff = pending.getAndSet(null)) != null) {
+                    sendDelta(emitter, diff);
+                    sent = true;
+                }
+                // 刚发送过差异时连接已确认可用，不必再发心跳
+                if (pingPending.getAndSet(false) && !sent) {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // 退出前再检查一次，避免与 offer 竞争时遗漏
+            scheduleDrain();
+        }
+    }
+}
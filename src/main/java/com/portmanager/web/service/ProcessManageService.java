@@ -1,14 +1,25 @@
 package com.portmanager.web.service;
 
+import com.portmanager.web.model.PortInfo;
+import com.portmanager.web.model.PortSnapshot;
 import com.portmanager.web.model.ProcessInfo;
 import com.portmanager.web.scanner.PortScannerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 进程管理服务
@@ -18,133 +29,321 @@ public class ProcessManageService {
 
     private static final Logger log = LoggerFactory.getLogger(ProcessManageService.class);
 
+    /**
+     * SIGKILL 后等待进程退出的时间
+     */
+    private static final long FORCE_KILL_TIMEOUT_MS = 2000;
+
+    /**
+     * 保留的关闭结果数量
+     */
+    private static final int TERMINATION_RETENTION = 256;
+
     @Autowired
     private PortScannerFactory portScannerFactory;
 
+    @Autowired
+    private ScanScheduler scanScheduler;
+
+    @Autowired
+    private PortScanService portScanService;
+
     /**
-     * 永久停止进程（用于系统管理的服务）
-     *
-     * @param pid 进程ID
-     * @return 是否成功
+     * SIGTERM 后等待进程自行退出的时间，超时后发送 SIGKILL
      */
-    public boolean killProcessPermanently(Long pid) {
-        if (pid == null || pid <= 0) {
-            log.warn("Invalid PID: {}", pid);
-            return false;
+    @Value("${port-manager.kill.grace-period:5000}")
+    private long gracePeriodMs;
+
+    /**
+     * brew services / launchctl 命令的超时，超时后强制结束命令
+     */
+    @Value("${port-manager.kill.command-timeout:30000}")
+    private long commandTimeoutMs;
+
+    /**
+     * 最近发起的关闭，按PID查询结果，按发起顺序排列
+     */
+    private final Map<Long, CompletableFuture<TerminationResult>> terminations = new LinkedHashMap<>();
+
+    /**
+     * 关闭结果，区分服务停止和是否经过宽限期，用于向调用方说明实际发生了什么
+     */
+    public enum TerminationResult {
+        /**
+         * launchd 管理的服务已停止，未发送信号
+         */
+        SERVICE_STOPPED("Service stopped"),
+        /**
+         * 收到 SIGTERM 后在宽限期内自行退出
+         */
+        TERMINATED("Process terminated"),
+        /**
+         * 宽限期后仍未退出，被 SIGKILL 强制结束
+         */
+        KILLED_AFTER_GRACE("Process killed after grace period"),
+        /**
+         * 未经宽限期直接 SIGKILL (force 或不支持正常终止的平台)
+         */
+        KILLED("Process killed"),
+        /**
+         * 进程不存在、无权限或信号发送后仍未退出
+         */
+        FAILED("Failed to kill process");
+
+        private final String message;
+
+        TerminationResult(String message) {
+            this.message = message;
         }
 
-        try {
-            String osType = portScannerFactory.getOsType();
+        public String getMessage() {
+            return message;
+        }
 
-            if ("Windows".equals(osType)) {
-                // Windows 系统使用标准方法
-                log.info("Windows system, using standard kill method for permanent stop");
-                return killProcess(pid);
-            }
+        /**
+         * 是否通过停止服务结束 (永久停止后不会被 launchd 重新拉起)
+         */
+        public boolean isServiceStopped() {
+            return this == SERVICE_STOPPED;
+        }
 
-            // Mac/Linux: 强制使用服务管理方式
-            String launchdService = checkLaunchdService(pid);
-            if (launchdService != null) {
-                log.info("Process {} is managed by launchd service: {}, attempting permanent stop", pid, launchdService);
-                boolean stopped = stopLaunchdService(launchdService);
+        /**
+         * 是否先发送 SIGTERM 并等待了宽限期
+         */
+        public boolean isGraceApplied() {
+            return this == TERMINATED || this == KILLED_AFTER_GRACE;
+        }
+    }
 
-                if (stopped) {
-                    log.info("Successfully stopped launchd service permanently: {}", launchdService);
-                    return true;
-                } else {
+    /**
+     * 永久停止进程（用于系统管理的服务）
+     * - 仅 macOS 检查 launchd 服务，其他平台和非 launchd 管理的进程按普通关闭处理
+     * - launchd 管理的服务停止后立即完成；停止失败时结果为 FAILED，不再发送信号
+     *
+     * @param pid   进程ID
+     * @param force 是否跳过宽限期直接 SIGKILL
+     * @return 服务停止或进程退出 (或确认失败) 时完成的结果
+     */
+    public CompletableFuture<TerminationResult> terminateProcessPermanently(Long pid, boolean force) {
+        if (!isKillable(pid)) {
+            return CompletableFuture.completedFuture(TerminationResult.FAILED);
+        }
+
+        try {
+            if ("Mac".equals(portScannerFactory.getOsType())) {
+                String launchdService = checkLaunchdService(pid);
+                if (launchdService != null) {
+                    log.info("Process {} is managed by launchd service: {}, attempting permanent stop", pid, launchdService);
+                    if (stopLaunchdService(launchdService)) {
+                        log.info("Successfully stopped launchd service permanently: {}", launchdService);
+                        return track(pid, CompletableFuture.completedFuture(TerminationResult.SERVICE_STOPPED));
+                    }
                     log.error("Failed to stop launchd service permanently: {}", launchdService);
-                    return false;
+                    return track(pid, CompletableFuture.completedFuture(TerminationResult.FAILED));
                 }
-            } else {
-                // 不是 launchd 管理的服务，使用普通 kill 方法
                 log.info("Process {} is not managed by launchd, using standard kill", pid);
-                return killProcess(pid);
             }
+            return track(pid, signalProcess(pid, force));
         } catch (Exception e) {
             log.error("Failed to permanently kill process {}: {}", pid, e.getMessage(), e);
-            return false;
+            return CompletableFuture.completedFuture(TerminationResult.FAILED);
         }
     }
 
     /**
-     * 关闭指定PID的进程
+     * 关闭指定PID的进程 (SIGTERM -> 宽限期 -> SIGKILL)
      *
      * @param pid 进程ID
-     * @return 是否成功
+     * @return 进程退出 (或确认失败) 时完成的结果
+     * @see #terminateProcess(Long, boolean)
      */
-    public boolean killProcess(Long pid) {
-        if (pid == null || pid <= 0) {
-            log.warn("Invalid PID: {}", pid);
-            return false;
+    public CompletableFuture<TerminationResult> terminateProcess(Long pid) {
+        return terminateProcess(pid, false);
+    }
+
+    /**
+     * 关闭指定PID的进程
+     * - macOS 上由 launchd 管理的服务先尝试停止服务
+     * - 通过 JDK 进程API直接发送信号，不启动外部命令。默认先发送 SIGTERM，宽限期
+     *   (port-manager.kill.grace-period) 内未退出再发送 SIGKILL；force 时直接发送 SIGKILL。
+     *   不支持正常终止的平台 (Windows) 总是直接强制结束
+     * - 等待进程退出是异步的，调用线程只负责发送第一个信号；结果可通过 {@link #getTermination} 查询
+     *
+     * @param pid   进程ID
+     * @param force 是否跳过宽限期直接 SIGKILL
+     * @return 进程退出 (或确认失败) 时完成的结果
+     */
+    public CompletableFuture<TerminationResult> terminateProcess(Long pid, boolean force) {
+        if (!isKillable(pid)) {
+            return CompletableFuture.completedFuture(TerminationResult.FAILED);
         }
 
         try {
-            String osType = portScannerFactory.getOsType();
-
-            // 对于 Mac/Linux 系统，先检查是否是 launchd 管理的服务
-            if (!"Windows".equals(osType)) {
+            // macOS 上先检查是否是 launchd 管理的服务
+            if ("Mac".equals(portScannerFactory.getOsType())) {
                 String launchdService = checkLaunchdService(pid);
                 if (launchdService != null) {
                     log.info("Process {} is managed by launchd service: {}", pid, launchdService);
-                    boolean stopped = stopLaunchdService(launchdService);
-                    if (stopped) {
+                    if (stopLaunchdService(launchdService)) {
                         log.info("Successfully stopped launchd service: {}", launchdService);
-                        return true;
-                    } else {
-                        log.warn("Failed to stop launchd service: {}, will try kill command", launchdService);
-                        // 如果停止服务失败，继续尝试 kill 命令
+                        return track(pid, CompletableFuture.completedFuture(TerminationResult.SERVICE_STOPPED));
                     }
+                    // 如果停止服务失败，继续尝试发送信号
+                    log.warn("Failed to stop launchd service: {}, will send signals", launchdService);
                 }
             }
+            return track(pid, signalProcess(pid, force));
+        } catch (Exception e) {
+            log.error("Failed to kill process {}: {}", pid, e.getMessage(), e);
+            return CompletableFuture.completedFuture(TerminationResult.FAILED);
+        }
+    }
 
-            // 普通进程的关闭逻辑
-            Process process;
+    /**
+     * 查询最近一次对该PID发起的关闭
+     *
+     * @param pid 进程ID
+     * @return 关闭结果，未完成时future尚未完成；没有记录 (未发起或已淘汰) 时返回null
+     */
+    public CompletableFuture<TerminationResult> getTermination(Long pid) {
+        synchronized (terminations) {
+            return terminations.get(pid);
+        }
+    }
 
-            if ("Windows".equals(osType)) {
-                // Windows: taskkill /F /PID {pid}
-                process = new ProcessBuilder("cmd", "/c",
-                        String.format("taskkill /F /PID %d", pid)).start();
-            } else {
-                // Mac/Linux: kill -9 {pid}
-                process = new ProcessBuilder("sh", "-c",
-                        String.format("kill -9 %d", pid)).start();
+    private boolean isKillable(Long pid) {
+        if (pid == null || pid <= 0) {
+            log.warn("Invalid PID: {}", pid);
+            return false;
+        }
+        if (pid == ProcessHandle.current().pid()) {
+            log.warn("Refusing to kill Port Manager itself: {}", pid);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 记录关闭结果供查询，超出保留数量时从最早的记录开始淘汰已完成的，未完成的保留
+     */
+    private CompletableFuture<TerminationResult> track(Long pid, CompletableFuture<TerminationResult> termination) {
+        synchronized (terminations) {
+            terminations.remove(pid);
+            terminations.put(pid, termination);
+            Iterator<CompletableFuture<TerminationResult>> iterator = terminations.values().iterator();
+            while (terminations.size() > TERMINATION_RETENTION && iterator.hasNext()) {
+                if (iterator.next().isDone()) {
+                    iterator.remove();
+                }
             }
+        }
+        return termination;
+    }
 
-            int exitCode = process.waitFor();
-            boolean success = exitCode == 0;
+    private CompletableFuture<TerminationResult> signalProcess(Long pid, boolean force) {
+        Optional<ProcessHandle> handle = ProcessHandle.of(pid);
+        if (!handle.isPresent() || !handle.get().isAlive()) {
+            log.warn("Process not found: {}", pid);
+            return CompletableFuture.completedFuture(TerminationResult.FAILED);
+        }
+        CompletableFuture<TerminationResult> result = force ? forceKill(handle.get()) : signal(handle.get());
+        // 进程退出后加快扫描以尽快反映端口释放
+        result.thenRun(scanScheduler::boost);
+        return result;
+    }
 
-            if (success) {
-                log.info("Successfully killed process: {}", pid);
-            } else {
-                log.warn("Failed to kill process: {}, exit code: {}", pid, exitCode);
-                // 读取错误输出
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(process.getErrorStream()))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        log.warn("Error output: {}", line);
+    /**
+     * SIGTERM -> 宽限期 -> SIGKILL
+     */
+    private CompletableFuture<TerminationResult> signal(ProcessHandle handle) {
+        long pid = handle.pid();
+        if (!handle.supportsNormalTermination()) {
+            return forceKill(handle);
+        }
+
+        if (!handle.destroy()) {
+            log.warn("Failed to send SIGTERM to process: {}. Please check permissions.", pid);
+            return CompletableFuture.completedFuture(TerminationResult.FAILED);
+        }
+        log.info("Sent SIGTERM to process: {}, grace period {} ms", pid, gracePeriodMs);
+
+        return handle.onExit()
+                .thenApply(exited -> TerminationResult.TERMINATED)
+                .completeOnTimeout(null, gracePeriodMs, TimeUnit.MILLISECONDS)
+                .thenCompose(terminated -> {
+                    if (terminated != null) {
+                        log.info("Process {} exited after SIGTERM", pid);
+                        return CompletableFuture.completedFuture(terminated);
                     }
-                }
-            }
+                    log.info("Process {} still alive after {} ms, sending SIGKILL", pid, gracePeriodMs);
+                    return forceKill(handle).thenApply(killed -> killed == TerminationResult.KILLED
+                            ? TerminationResult.KILLED_AFTER_GRACE : killed);
+                });
+    }
 
-            return success;
-        } catch (Exception e) {
-            log.error("Failed to kill process {}: {}", pid, e.getMessage(), e);
-            return false;
+    private CompletableFuture<TerminationResult> forceKill(ProcessHandle handle) {
+        long pid = handle.pid();
+        if (!handle.destroyForcibly()) {
+            log.warn("Failed to kill process: {}. Please check permissions.", pid);
+            return CompletableFuture.completedFuture(TerminationResult.FAILED);
         }
+        return handle.onExit()
+                .thenApply(exited -> {
+                    log.info("Successfully killed process: {}", pid);
+                    return TerminationResult.KILLED;
+                })
+                .completeOnTimeout(TerminationResult.FAILED, FORCE_KILL_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .whenComplete((result, e) -> {
+                    if (result == TerminationResult.FAILED) {
+                        log.warn("Process {} did not exit within {} ms after SIGKILL", pid, FORCE_KILL_TIMEOUT_MS);
+                    }
+                });
     }
 
     /**
      * 获取进程信息
+     * 优先从当前快照的PID索引读取 (扫描时已获取进程名、命令行和用户)，不启动外部命令
      *
      * @param pid 进程ID
      * @return 进程信息
      */
     public ProcessInfo getProcessInfo(Long pid) {
+        return getProcessInfo(pid, -1);
+    }
+
+    /**
+     * 获取进程信息
+     * 快照中有该PID且快照不早于 maxAgeMs 时直接从快照返回；否则重新查询进程
+     *
+     * @param pid      进程ID
+     * @param maxAgeMs 可接受的快照最大时长 (毫秒)，小于0表示不限
+     * @return 进程信息，进程不存在时返回null
+     */
+    public ProcessInfo getProcessInfo(Long pid, long maxAgeMs) {
         if (pid == null || pid <= 0) {
             return null;
         }
 
+        PortSnapshot snapshot = portScanService.getSnapshot();
+        List<PortInfo> sockets = snapshot.getPortsByPid(pid);
+        if (!sockets.isEmpty()
+                && (maxAgeMs < 0 || System.currentTimeMillis() - snapshot.getScanTime() <= maxAgeMs)) {
+            PortInfo portInfo = sockets.get(0);
+            return ProcessInfo.builder()
+                    .pid(pid)
+                    .processName(portInfo.getProcessName())
+                    .commandLine(portInfo.getCommandLine())
+                    .user(portInfo.getUser())
+                    .isDevelopmentProcess(portInfo.getIsDevelopmentProcess())
+                    .build();
+        }
+        return probeProcessInfo(pid);
+    }
+
+    /**
+     * 通过 ps / tasklist + wmic 查询进程信息
+     */
+    private ProcessInfo probeProcessInfo(Long pid) {
         try {
             String osType = portScannerFactory.getOsType();
             String processName = "";
@@ -158,11 +357,12 @@ public class ProcessManageService {
             } else {
                 // Mac/Linux: ps
                 String[] psOutput = getMacProcessInfo(pid);
-                if (psOutput != null && psOutput.length >= 2) {
-                    user = psOutput[0];
-                    commandLine = psOutput[1];
-                    processName = extractProcessName(commandLine);
+                if (psOutput == null || psOutput.length < 2) {
+                    return null;
                 }
+                user = psOutput[0];
+                commandLine = psOutput[1];
+                processName = extractProcessName(commandLine);
             }
 
             return ProcessInfo.builder()
@@ -184,25 +384,7 @@ public class ProcessManageService {
         if (pid == null || pid <= 0) {
             return false;
         }
-
-        try {
-            String osType = portScannerFactory.getOsType();
-            Process process;
-
-            if ("Windows".equals(osType)) {
-                process = new ProcessBuilder("cmd", "/c",
-                        String.format("tasklist /FI \"PID eq %d\"", pid)).start();
-            } else {
-                process = new ProcessBuilder("sh", "-c",
-                        String.format("ps -p %d", pid)).start();
-            }
-
-            int exitCode = process.waitFor();
-            return exitCode == 0;
-        } catch (Exception e) {
-            log.debug("Failed to check if process {} is alive: {}", pid, e.getMessage());
-            return false;
-        }
+        return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
     }
 
     // ==================== Windows辅助方法 ====================
@@ -299,12 +481,11 @@ public class ProcessManageService {
      */
     private String checkLaunchdService(Long pid) {
         try {
-            // 首先获取进程信息，用于后续的名称匹配
-            String[] processInfo = getMacProcessInfo(pid);
+            // 首先获取进程信息，用于后续的名称匹配 (监听端口的进程直接取自快照)
+            ProcessInfo processInfo = getProcessInfo(pid);
             String processName = null;
-            if (processInfo != null && processInfo.length >= 2) {
-                String commandLine = processInfo[1];
-                processName = extractProcessName(commandLine);
+            if (processInfo != null && processInfo.getCommandLine() != null && !processInfo.getCommandLine().isEmpty()) {
+                processName = extractProcessName(processInfo.getCommandLine());
             }
 
             // 方法1: 通过 PID 直接匹配
@@ -403,10 +584,7 @@ public class ProcessManageService {
                 String brewServiceName = serviceName.substring("homebrew.mxcl.".length());
                 log.info("Attempting to stop Homebrew service: {}", brewServiceName);
 
-                Process brewProcess = new ProcessBuilder("sh", "-c",
-                        String.format("brew services stop %s", brewServiceName)).start();
-
-                int brewExitCode = brewProcess.waitFor();
+                int brewExitCode = runCommand(String.format("brew services stop %s", brewServiceName));
                 if (brewExitCode == 0) {
                     log.info("Successfully stopped Homebrew service: {}", brewServiceName);
                     return true;
@@ -416,20 +594,15 @@ public class ProcessManageService {
             }
 
             // 尝试使用 launchctl stop
-            Process stopProcess = new ProcessBuilder("sh", "-c",
-                    String.format("launchctl stop %s", serviceName)).start();
-
-            int stopExitCode = stopProcess.waitFor();
+            int stopExitCode = runCommand(String.format("launchctl stop %s", serviceName));
             if (stopExitCode == 0) {
                 log.info("Successfully stopped service with launchctl stop: {}", serviceName);
                 return true;
             }
 
             // 如果 stop 失败，尝试 unload（移除服务）
-            Process unloadProcess = new ProcessBuilder("sh", "-c",
-                    String.format("launchctl unload -w ~/Library/LaunchAgents/%s.plist", serviceName)).start();
-
-            int unloadExitCode = unloadProcess.waitFor();
+            int unloadExitCode = runCommand(
+                    String.format("launchctl unload -w ~/Library/LaunchAgents/%s.plist", serviceName));
             if (unloadExitCode == 0) {
                 log.info("Successfully unloaded service: {}", serviceName);
                 return true;
@@ -443,4 +616,22 @@ public class ProcessManageService {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 执行命令并等待结束 (输出丢弃)，超过 command-timeout 时强制结束
+     *
+     * @return 退出码，超时返回 -1
+     */
+    private int runCommand(String command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder("sh", "-c", command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        if (!process.waitFor(commandTimeoutMs, TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            log.warn("Command timed out after {}ms: {}", commandTimeoutMs, command);
+            return -1;
+        }
+        return process.exitValue();
+    }
+}
@@ -0,0 +1,237 @@
+package com.portmanager.web.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 自适应扫描调度器
+ * - 应用启动完成后立即进行首次扫描，之后按 port-manager.scan.interval 扫描
+ * - 长时间无人访问时逐步退避，有访问时立即恢复
+ * - 关闭进程或手动扫描后短时间内加快扫描
+ * - 按实际扫描耗时限制扫描占用的时间比例 (CPU预算)
+ */
+@Service
+public class ScanScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanScheduler.class);
+
+    @Autowired
+    private PortScanService portScanService;
+
+    @Autowired
+    private PortStreamService portStreamService;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    /**
+     * 正常扫描间隔(毫秒)
+     */
+    @Value("${port-manager.scan.interval:5000}")
+    private long interval;
+
+    /**
+     * 无人访问多久后开始退避(毫秒)
+     */
+    @Value("${port-manager.scan.idle-after:60000}")
+    private long idleAfter;
+
+    /**
+     * 退避后的最大扫描间隔(毫秒)
+     */
+    @Value("${port-manager.scan.max-idle-interval:60000}")
+    private long maxIdleInterval;
+
+    /**
+     * 加速期间的扫描间隔(毫秒)
+     */
+    @Value("${port-manager.scan.boost-interval:1000}")
+    private long boostInterval;
+
+    /**
+     * 加速持续时间(毫秒)
+     */
+    @Value("${port-manager.scan.boost-duration:10000}")
+    private long boostDuration;
+
+    /**
+     * 扫描耗时占总时间的最大比例 (0~1]
+     */
+    @Value("${port-manager.scan.cpu-budget:0.1}")
+    private double cpuBudget;
+
+    private volatile long lastDemandTime = System.currentTimeMillis();
+    private volatile long boostUntil = 0;
+    private volatile boolean idle = false;
+
+    /**
+     * 扫描耗时的指数移动平均(毫秒)
+     */
+    private volatile double avgScanDuration = 0;
+
+    private long idleDelay;
+    private long nextScanTime;
+    private ScheduledFuture<?> nextScan;
+    private boolean scanning;
+    private boolean stopped;
+
+    @PostConstruct
+    public void init() {
+        idleDelay = interval;
+    }
+
+    /**
+     * 首次扫描在Web服务启动后执行，扫描期间已可处理请求；
+     * 此时差异的事件监听方均已注册，首次扫描的差异不会丢失
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public synchronized void start() {
+        schedule(0);
+        log.info("Scan scheduler started, interval {}ms, cpu budget {}", interval, cpuBudget);
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        stopped = true;
+        if (nextScan != null) {
+            nextScan.cancel(false);
+        }
+    }
+
+    /**
+     * 记录一次数据访问
+     */
+    public void recordDemand() {
+        lastDemandTime = System.currentTimeMillis();
+        if (idle) {
+            // 从退避状态恢复，尽快给出新数据
+            synchronized (this) {
+                if (idle) {
+                    idle = false;
+                    idleDelay = interval;
+                    log.debug("Demand resumed, scanning at normal interval");
+                    scheduleSooner(0);
+                }
+            }
+        }
+    }
+
+    /**
+     * 关闭进程或手动扫描后临时加速
+     */
+    public void boost() {
+        lastDemandTime = System.currentTimeMillis();
+        boostUntil = lastDemandTime + boostDuration;
+        synchronized (this) {
+            idle = false;
+            idleDelay = interval;
+            scheduleSooner(boostInterval);
+        }
+    }
+
+    /**
+     * 当前平均扫描耗时(毫秒)
+     */
+    public double getAverageScanDuration() {
+        return avgScanDuration;
+    }
+
+    /**
+     * 当前是否处于退避状态
+     */
+    public boolean isIdle() {
+        return idle;
+    }
+
+    private void runScan() {
+        synchronized (this) {
+            if (scanning || stopped) {
+                // 被提前的任务与正在执行的扫描重叠，交由当前扫描结束后重新排定
+                return;
+            }
+            scanning = true;
+        }
+        long start = System.nanoTime();
+        try {
+            portScanService.scanAllPorts();
+        } finally {
+            double duration = (System.nanoTime() - start) / 1_000_000.0;
+            avgScanDuration = avgScanDuration == 0 ? duration : avgScanDuration * 0.8 + duration * 0.2;
+            synchronized (this) {
+                scanning = false;
+                schedule(nextDelay());
+            }
+        }
+    }
+
+    /**
+     * 计算下一次扫描的延迟
+     */
+    private long nextDelay() {
+        long now = System.currentTimeMillis();
+        long delay;
+
+        if (now < boostUntil) {
+            delay = boostInterval;
+        } else if (now - lastDemandTime > idleAfter && portStreamService.getSubscriberCount() == 0) {
+            if (!idle) {
+                idle = true;
+                log.debug("No demand for {}ms, backing off", now - lastDemandTime);
+            }
+            idleDelay = Math.min(idleDelay * 2, Math.max(maxIdleInterval, interval));
+            delay = idleDelay;
+        } else {
+            delay = interval;
+        }
+
+        // CPU预算: 扫描耗时 / (扫描耗时 + 间隔) 不超过预算
+        if (cpuBudget > 0 && cpuBudget < 1) {
+            long minDelay = (long) (avgScanDuration * (1 - cpuBudget) / cpuBudget);
+            if (delay < minDelay) {
+                log.debug("Scan interval raised from {}ms to {}ms by cpu budget", delay, minDelay);
+                delay = minDelay;
+            }
+        }
+        return delay;
+    }
+
+    /**
+     * 若已排定的扫描晚于指定延迟，则提前
+     * 调用方需持有锁
+     */
+    private void scheduleSooner(long delay) {
+        if (scanning) {
+            // 扫描结束后会按最新状态重新计算
+            return;
+        }
+        if (nextScan == null || nextScanTime > System.currentTimeMillis() + delay) {
+            schedule(delay);
+        }
+    }
+
+    /**
+     * 取消已排定的扫描并重新排定
+     * 调用方需持有锁
+     */
+    private void schedule(long delay) {
+        if (stopped) {
+            return;
+        }
+        if (nextScan != null) {
+            nextScan.cancel(false);
+        }
+        nextScanTime = System.currentTimeMillis() + delay;
+        nextScan = taskScheduler.schedule(this::runScan, new Date(nextScanTime));
+    }
+}
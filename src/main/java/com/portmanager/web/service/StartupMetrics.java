@@ -0,0 +1,74 @@
+package com.portmanager.web.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 启动耗时指标 (均从JVM启动开始计时，尚未发生时为NaN)
+ * - portmanager.startup.restore: 从端口日志恢复上次快照的耗时
+ * - portmanager.startup.first.request: 收到第一个API请求
+ * - portmanager.startup.first.snapshot: 首次全量扫描完成
+ * 应用可以开始处理请求的时间由 Spring Boot 记录为 application.ready.time。
+ */
+@Component
+public class StartupMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupMetrics.class);
+
+    private final AtomicLong restoreMillis = new AtomicLong(-1);
+    private final AtomicLong firstRequestMillis = new AtomicLong(-1);
+    private final AtomicLong firstSnapshotMillis = new AtomicLong(-1);
+
+    @Autowired
+    public StartupMetrics(MeterRegistry registry) {
+        register(registry, "portmanager.startup.restore", restoreMillis,
+                "Time to restore the last snapshot from the journal");
+        register(registry, "portmanager.startup.first.request", firstRequestMillis,
+                "Time from JVM start to the first API request");
+        register(registry, "portmanager.startup.first.snapshot", firstSnapshotMillis,
+                "Time from JVM start to the first complete snapshot");
+    }
+
+    /**
+     * 记录恢复快照的耗时
+     */
+    public void restored(long millis) {
+        restoreMillis.set(millis);
+    }
+
+    /**
+     * 记录收到API请求，只保留第一次
+     */
+    public void requestReceived() {
+        if (firstRequestMillis.get() < 0) {
+            firstRequestMillis.compareAndSet(-1, uptime());
+        }
+    }
+
+    /**
+     * 记录全量扫描完成，只保留第一次
+     */
+    public void snapshotPublished() {
+        if (firstSnapshotMillis.get() < 0 && firstSnapshotMillis.compareAndSet(-1, uptime())) {
+            log.info("First complete snapshot {}ms after JVM start", firstSnapshotMillis.get());
+        }
+    }
+
+    private static long uptime() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    private static void register(MeterRegistry registry, String name, AtomicLong millis, String description) {
+        TimeGauge.builder(name, millis, TimeUnit.MILLISECONDS, m -> m.get() < 0 ? Double.NaN : m.get())
+                .description(description)
+                .register(registry);
+    }
+}
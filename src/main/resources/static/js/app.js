@@ -7,6 +7,12 @@ const state = {
     selectedPorts: new Set(), // 选中的端口
     autoRefresh: true,
     autoRefreshInterval: null,
+    eventSource: null, // 服务端推送连接
+    streamErrors: 0, // 连接建立后连续失败的次数
+    streamRetryTimer: null, // 轮询期间重试推送的定时器
+    streamRetryDelay: 5000,
+    version: 0, // 当前数据对应的快照版本
+    warming: false, // 首次扫描尚未完成，显示的是上次保存的快照
     currentTheme: 'light',
     lastScanTime: 0,
     filters: {
@@ -66,7 +72,6 @@ document.addEventListener('DOMContentLoaded', () => {
     initElements();
     initEventListeners();
     initTheme();
-    loadPorts();
     startAutoRefresh();
 });
 
@@ -162,9 +167,16 @@ async function loadPorts() {
         if (result.success) {
             state.ports = result.data || [];
             state.lastScanTime = result.lastScanTime;
+            state.version = result.version || 0;
+            state.warming = !!result.warming;
             applyFilters();
             updateUI();
-            showStatus(`加载成功: ${state.ports.length} 个端口`, 'success');
+            if (result.warming) {
+                // 首次扫描尚未完成，扫描完成后通过推送更新
+                showStatus(`正在扫描，显示上次保存的 ${state.ports.length} 个端口`, 'info');
+            } else {
+                showStatus(`加载成功: ${state.ports.length} 个端口`, 'success');
+            }
 
             // 更新操作系统类型
             if (result.osType) {
@@ -307,7 +319,6 @@ function toggleAutoRefresh() {
     if (state.autoRefresh) {
         startAutoRefresh();
         elements.autoRefreshToggle.textContent = '⏸️ 暂停自动刷新';
-        elements.autoRefreshStatus.textContent = '自动刷新: 开启 (5秒)';
     } else {
         stopAutoRefresh();
         elements.autoRefreshToggle.textContent = '▶️ 开启自动刷新';
@@ -315,25 +326,139 @@ function toggleAutoRefresh() {
     }
 }
 
-// 启动自动刷新
+// 启动自动刷新: 优先使用服务端推送，不支持或连接失败时退回轮询
 function startAutoRefresh() {
-    if (state.autoRefreshInterval) {
-        clearInterval(state.autoRefreshInterval);
+    stopAutoRefresh();
+
+    if (window.EventSource) {
+        openStream();
+    } else {
+        startPolling();
     }
+}
 
+// 建立推送连接
+function openStream() {
+    const eventSource = new EventSource('/api/ports/stream');
+    state.eventSource = eventSource;
+    let opened = false;
+
+    eventSource.onopen = () => {
+        // 连接成功 (包括浏览器自动重连成功)，停止轮询并重置失败计数
+        opened = true;
+        state.streamErrors = 0;
+        state.streamRetryDelay = 5000;
+        if (state.autoRefreshInterval) {
+            clearInterval(state.autoRefreshInterval);
+            state.autoRefreshInterval = null;
+        }
+    };
+
+    eventSource.addEventListener('snapshot', (e) => {
+        state.streamErrors = 0;
+        const result = JSON.parse(e.data);
+        state.ports = result.data || [];
+        state.version = result.version;
+        state.lastScanTime = result.lastScanTime;
+        refreshLiveView();
+        elements.autoRefreshStatus.textContent = '自动刷新: 实时推送';
+    });
+
+    eventSource.addEventListener('delta', (e) => {
+        state.streamErrors = 0;
+        applyDelta(JSON.parse(e.data));
+        elements.autoRefreshStatus.textContent = '自动刷新: 实时推送';
+    });
+
+    eventSource.onerror = () => {
+        // 浏览器会自动重连；从未连上、连续失败或连接被关闭时改为轮询，并在之后重试推送
+        state.streamErrors++;
+        if (!opened || eventSource.readyState === EventSource.CLOSED || state.streamErrors >= 3) {
+            eventSource.close();
+            state.eventSource = null;
+            if (!state.autoRefreshInterval) {
+                startPolling();
+            }
+            scheduleStreamRetry();
+        }
+    };
+}
+
+// 轮询期间按退避间隔重试推送连接，连上后由 onopen 停止轮询
+function scheduleStreamRetry() {
+    clearTimeout(state.streamRetryTimer);
+    const delay = state.streamRetryDelay;
+    state.streamRetryDelay = Math.min(delay * 2, 60000);
+    state.streamRetryTimer = setTimeout(() => {
+        state.streamRetryTimer = null;
+        if (state.autoRefresh && !state.eventSource) {
+            openStream();
+        }
+    }, delay);
+}
+
+// 应用增量变化 (合并后的差异可能覆盖本地已有的版本，按socket键幂等更新)
+function applyDelta(delta) {
+    if (delta.version <= state.version) {
+        return;
+    }
+    if (delta.fromVersion > state.version) {
+        // 中间有缺失，重新全量加载
+        loadPorts();
+        return;
+    }
+
+    const portMap = new Map(state.ports.map(port => [port.key, port]));
+    (delta.removed || []).forEach(port => portMap.delete(port.key));
+    (delta.added || []).forEach(port => portMap.set(port.key, port));
+    (delta.changed || []).forEach(port => portMap.set(port.key, port));
+    (delta.counts || []).forEach(port => portMap.set(port.key, port));
+
+    state.ports = Array.from(portMap.values());
+    state.version = delta.version;
+    state.lastScanTime = delta.lastScanTime;
+    refreshLiveView();
+    if (state.warming) {
+        // 首次扫描完成
+        state.warming = false;
+        showStatus(`扫描完成: ${state.ports.length} 个端口`, 'success');
+    }
+}
+
+// 推送数据到达后刷新界面 (搜索中时不打断搜索结果)
+function refreshLiveView() {
+    if (elements.searchInput.value.trim()) {
+        return;
+    }
+    applyFilters();
+    updateUI();
+}
+
+// 轮询刷新
+function startPolling() {
+    loadPorts();
     state.autoRefreshInterval = setInterval(() => {
         if (state.autoRefresh) {
             loadPorts();
         }
     }, 5000);
+    elements.autoRefreshStatus.textContent = '自动刷新: 开启 (5秒)';
 }
 
 // 停止自动刷新
 function stopAutoRefresh() {
+    if (state.streamRetryTimer) {
+        clearTimeout(state.streamRetryTimer);
+        state.streamRetryTimer = null;
+    }
     if (state.autoRefreshInterval) {
         clearInterval(state.autoRefreshInterval);
         state.autoRefreshInterval = null;
     }
+    if (state.eventSource) {
+        state.eventSource.close();
+        state.eventSource = null;
+    }
 }
 
 // 更新UI
@@ -347,7 +472,7 @@ function updateUI() {
 function updateTable() {
     if (state.filteredPorts.length === 0) {
         elements.portTableBody.innerHTML =
-            '<tr><td colspan="11" class="loading">未找到端口信息</td></tr>';
+            '<tr><td colspan="13" class="loading">未找到端口信息</td></tr>';
         elements.portCount.textContent = '0 ports';
         elements.selectAll.checked = false;
         return;
@@ -365,6 +490,8 @@ function updateTable() {
             <td>${getPortTypeBadge(port.portType)}</td>
             <td>${port.protocol || '-'}</td>
             <td><span class="status-badge status-${(port.status || 'listening').toLowerCase()}">${port.status || 'LISTENING'}</span></td>
+            <td>${port.establishedConnections != null ? port.establishedConnections : '-'}</td>
+            <td>${port.newConnectionRate != null ? port.newConnectionRate.toFixed(1) : '-'}</td>
             <td>${port.pid || '-'}</td>
             <td>${escapeHtml(port.processName || '-')}</td>
             <td title="${escapeHtml(port.commandLine || '')}">${truncate(escapeHtml(port.commandLine || '-'), 50)}</td>
@@ -734,6 +861,24 @@ function showBatchKillConfirm() {
     elements.batchConfirmDialog.style.display = 'flex';
 }
 
+// 轮询批量关闭任务直到完成，期间显示进度
+async function waitForBatchKillJob(jobId, action) {
+    while (true) {
+        const response = await fetch(`/api/process/batch/${encodeURIComponent(jobId)}`);
+        const result = await response.json();
+        if (!result.success) {
+            return null;
+        }
+
+        const job = result.data;
+        if (job.status === 'COMPLETED') {
+            return job;
+        }
+        showStatus(`正在批量${action} (${job.completed}/${job.total})...`, 'info');
+        await new Promise(resolve => setTimeout(resolve, 500));
+    }
+}
+
 // 隐藏批量确认对话框
 function hideBatchConfirmDialog() {
     elements.batchConfirmDialog.style.display = 'none';
@@ -759,22 +904,24 @@ async function batchKillProcesses(pids, permanent = false) {
         const result = await response.json();
 
         if (result.success) {
-            const successCount = result.results.filter(r => r.success).length;
-            const failCount = result.results.filter(r => !r.success).length;
-
-            let message = `批量${action}完成: ${successCount} 成功`;
-            if (failCount > 0) {
-                message += `, ${failCount} 失败`;
-            }
-
-            showStatus(message, successCount > 0 ? 'success' : 'error');
-
             // 清空选择
             state.selectedPorts.clear();
             updateBatchKillButton();
 
-            // 2秒后刷新列表
-            setTimeout(() => loadPorts(), 2000);
+            const job = await waitForBatchKillJob(result.jobId, action);
+            if (!job) {
+                showStatus(`批量${action}状态查询失败`, 'error');
+                return;
+            }
+
+            let message = `批量${action}完成: ${job.successCount} 成功`;
+            if (job.failCount > 0) {
+                message += `, ${job.failCount} 失败`;
+            }
+            showStatus(message, job.successCount > 0 ? 'success' : 'error');
+
+            // 刷新列表
+            loadPorts();
         } else {
             showStatus(`批量${action}失败: ` + (result.message || '未知错误'), 'error');
         }
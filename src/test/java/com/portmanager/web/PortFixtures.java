@@ -0,0 +1,51 @@
+package com.portmanager.web;
+
+import com.portmanager.web.model.PortDiff;
+import com.portmanager.web.model.PortInfo;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 测试用的端口数据
+ */
+public final class PortFixtures {
+
+    private PortFixtures() {
+    }
+
+    /**
+     * 通配地址上的 TCP 监听socket，可继续设置其他字段
+     */
+    public static PortInfo.Builder listener(int port) {
+        return PortInfo.builder()
+                .port(port)
+                .protocol("TCP")
+                .status("LISTENING")
+                .localAddress("*:" + port);
+    }
+
+    public static PortInfo listener(int port, Long pid, String processName) {
+        return listener(port).pid(pid).processName(processName).build();
+    }
+
+    /**
+     * 扫描时间为 toVersion * 1000 的差异
+     */
+    public static PortDiff diff(long fromVersion, long toVersion, List<PortInfo> added, List<PortInfo> removed,
+                                List<PortInfo> changed) {
+        return new PortDiff(fromVersion, toVersion, toVersion * 1000, added, removed, changed);
+    }
+
+    /**
+     * 带连接数更新的差异，扫描时间为 toVersion * 1000
+     */
+    public static PortDiff diff(long fromVersion, long toVersion, List<PortInfo> added, List<PortInfo> removed,
+                                List<PortInfo> changed, List<PortInfo> counts) {
+        return new PortDiff(fromVersion, toVersion, toVersion * 1000, added, removed, changed, counts);
+    }
+
+    public static List<PortInfo> list(PortInfo... ports) {
+        return Arrays.asList(ports);
+    }
+}
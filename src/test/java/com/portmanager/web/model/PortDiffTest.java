@@ -0,0 +1,144 @@
+package com.portmanager.web.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.portmanager.web.PortFixtures.diff;
+import static com.portmanager.web.PortFixtures.list;
+import static com.portmanager.web.PortFixtures.listener;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 快照差异的计算与合并
+ */
+class PortDiffTest {
+
+    @Test
+    void betweenSeparatesAddedRemovedAndChanged() {
+        PortInfo kept = listener(8080, 100L, "java");
+        PortInfo renamed = listener(8081, 101L, "java");
+        PortInfo gone = listener(8083, 103L, "python");
+        PortSnapshot previous = new PortSnapshot(1, 1000, list(kept, renamed, gone));
+
+        PortInfo renamedNow = listener(8081, 101L, "gradle");
+        PortInfo fresh = listener(9000, 200L, "nginx");
+        PortSnapshot current = new PortSnapshot(2, 2000, list(kept, renamedNow, fresh));
+
+        PortDiff diff = PortDiff.between(previous, current);
+
+        assertEquals(1, diff.getFromVersion());
+        assertEquals(2, diff.getToVersion());
+        assertEquals(2000, diff.getScanTime());
+        assertEquals(list(fresh), diff.getAdded());
+        assertEquals(list(gone), diff.getRemoved());
+        assertEquals(list(renamedNow), diff.getChanged());
+        assertTrue(diff.hasChanges());
+        assertFalse(PortDiff.between(current, current).hasChanges());
+    }
+
+    @Test
+    void mergeOfSingleDiffReturnsIt() {
+        PortDiff diff = diff(1, 2, list(listener(8080, 100L, "java")), list(), list());
+
+        assertSame(diff, PortDiff.merge(Collections.singletonList(diff)));
+    }
+
+    @Test
+    void mergeDropsPortsAddedAndRemovedInBetween() {
+        PortInfo transient8080 = listener(8080, 100L, "java");
+        PortInfo stays = listener(9000, 200L, "nginx");
+
+        PortDiff merged = PortDiff.merge(Arrays.asList(
+                diff(1, 2, list(transient8080, stays), list(), list()),
+                diff(2, 3, list(), list(transient8080), list())));
+
+        assertEquals(1, merged.getFromVersion());
+        assertEquals(3, merged.getToVersion());
+        assertEquals(3000, merged.getScanTime());
+        assertEquals(list(stays), merged.getAdded());
+        assertTrue(merged.getRemoved().isEmpty());
+        assertTrue(merged.getChanged().isEmpty());
+    }
+
+    @Test
+    void mergeKeepsLatestValue() {
+        PortInfo added = listener(8080, 100L, "java");
+        PortInfo addedThenChanged = listener(8080, 100L, "gradle");
+        PortInfo existingChanged = listener(8081, 101L, "vite");
+        PortInfo existingChangedAgain = listener(8081, 101L, "webpack");
+
+        PortDiff merged = PortDiff.merge(Arrays.asList(
+                diff(1, 2, list(added), list(), list(existingChanged)),
+                diff(2, 3, list(), list(), list(addedThenChanged, existingChangedAgain))));
+
+        // 窗口内新出现的仍是 added，只是取最新值
+        assertEquals(list(addedThenChanged), merged.getAdded());
+        assertEquals(list(existingChangedAgain), merged.getChanged());
+        assertTrue(merged.getRemoved().isEmpty());
+    }
+
+    @Test
+    void mergeTreatsRemovedThenAddedAsChanged() {
+        PortInfo before = listener(8080, 100L, "java");
+        PortInfo after = listener(8080).pid(100L).processName("java").user("root").build();
+
+        PortDiff merged = PortDiff.merge(Arrays.asList(
+                diff(1, 2, list(), list(before), list()),
+                diff(2, 3, list(after), list(), list())));
+
+        assertTrue(merged.getAdded().isEmpty());
+        assertTrue(merged.getRemoved().isEmpty());
+        assertEquals(list(after), merged.getChanged());
+    }
+
+    @Test
+    void mergeReportsRemovedWithLastSeenValue() {
+        PortDiff merged = PortDiff.merge(Arrays.asList(
+                diff(1, 2, list(), list(), list(listener(8080, 100L, "gradle"))),
+                diff(2, 3, list(), list(listener(8080, 100L, "java")), list())));
+
+        assertEquals(1, merged.getRemoved().size());
+        assertEquals("java", merged.getRemoved().get(0).getProcessName());
+        assertTrue(merged.getChanged().isEmpty());
+    }
+
+    @Test
+    void betweenReportsCountOnlyUpdatesSeparately() {
+        PortInfo quiet = listener(8080).pid(100L).establishedConnections(1).build();
+        PortInfo busy = listener(8081).pid(101L).establishedConnections(1).build();
+        PortSnapshot previous = new PortSnapshot(1, 1000, list(quiet, busy));
+
+        PortInfo busyNow = listener(8081).pid(101L).establishedConnections(7).newConnectionRate(0.5).build();
+        PortDiff diff = PortDiff.between(previous, new PortSnapshot(2, 2000, list(quiet, busyNow)));
+
+        // 只有连接数变化不算作socket的变化
+        assertFalse(diff.hasChanges());
+        assertTrue(diff.hasCountChanges());
+        assertEquals(list(busyNow), diff.getCounts());
+        assertTrue(diff.getChanged().isEmpty());
+    }
+
+    @Test
+    void mergeFoldsCountUpdatesIntoLatestValue() {
+        PortInfo added = listener(8080).pid(100L).establishedConnections(1).build();
+        PortInfo addedCounts = listener(8080).pid(100L).establishedConnections(3).build();
+        PortInfo busy = listener(8081).pid(101L).establishedConnections(2).build();
+        PortInfo busier = listener(8081).pid(101L).establishedConnections(5).build();
+        PortInfo closing = listener(8082).pid(102L).establishedConnections(4).build();
+
+        PortDiff merged = PortDiff.merge(Arrays.asList(
+                diff(1, 2, list(added), list(), list(), list(busy, closing)),
+                diff(2, 3, list(), list(closing), list(), list(addedCounts, busier))));
+
+        // 新出现的socket的连接数更新并入 added；只有连接数变化的保留最新值；已删除的不再有连接数更新
+        assertEquals(list(addedCounts), merged.getAdded());
+        assertEquals(list(busier), merged.getCounts());
+        assertEquals(list(closing), merged.getRemoved());
+        assertTrue(merged.getChanged().isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+package com.portmanager.web.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.portmanager.web.PortFixtures.list;
+import static com.portmanager.web.PortFixtures.listener;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 端口占用位图上的占用与空闲端口查询
+ */
+class PortOccupancyTest {
+
+    @Test
+    void freePortsRespectProtocol() {
+        PortOccupancy occupancy = new PortOccupancy(list(
+                listener(2).build(), listener(3).build(), listener(5).protocol("UDP").build()));
+
+        assertArrayEquals(new int[]{1, 4, 6}, occupancy.getFree(null, 1, 10, 3));
+        assertArrayEquals(new int[]{1, 4, 5}, occupancy.getFree("TCP", 1, 10, 3));
+        assertArrayEquals(new int[]{1, 2, 3, 4}, occupancy.getFree("udp", 1, 10, 4));
+        assertTrue(occupancy.isOccupied(null, 5));
+        assertFalse(occupancy.isOccupied("TCP", 5));
+        assertEquals(2, occupancy.size("TCP"));
+    }
+
+    @Test
+    void scansAcrossWordBoundaries() {
+        List<PortInfo> ports = new ArrayList<>();
+        for (int port = 60; port <= 200; port++) {
+            ports.add(listener(port).build());
+        }
+        PortOccupancy occupancy = new PortOccupancy(ports);
+
+        assertArrayEquals(new int[]{201, 202}, occupancy.getFree(null, 60, 300, 2));
+        assertArrayEquals(new int[]{59}, occupancy.getFree(null, 59, 300, 1));
+        assertArrayEquals(new int[0], occupancy.getFree(null, 64, 191, 5));
+        assertEquals(141, occupancy.getOccupied(null, 0, 1000).length);
+        assertArrayEquals(new int[]{127, 128}, occupancy.getOccupied("TCP", 127, 128));
+    }
+
+    @Test
+    void returnsFewerPortsWhenRangeIsNearlyFull() {
+        PortOccupancy occupancy = new PortOccupancy(list(listener(1000).build(), listener(1002).build()));
+
+        assertArrayEquals(new int[]{1001}, occupancy.getFree(null, 1000, 1002, 5));
+    }
+
+    @Test
+    void clampsToHighestPort() {
+        PortOccupancy occupancy = new PortOccupancy(list(listener(PortOccupancy.MAX_PORT).build()));
+
+        assertArrayEquals(new int[]{65532, 65533, 65534}, occupancy.getFree(null, 65532, 70000, 10));
+    }
+
+    @Test
+    void skipsExcludedPorts() {
+        PortOccupancy occupancy = new PortOccupancy(list(listener(8001).build()));
+        long[] excluded = new long[PortOccupancy.WORDS];
+        excluded[8000 >>> 6] |= 1L << 8000;
+        excluded[8002 >>> 6] |= 1L << 8002;
+
+        assertArrayEquals(new int[]{8003, 8004}, occupancy.getFree("TCP", 8000, 8010, 2, excluded));
+        assertArrayEquals(new int[]{8000, 8002}, occupancy.getFree("TCP", 8000, 8010, 2));
+    }
+
+    @Test
+    void neverReturnsPortZero() {
+        PortOccupancy occupancy = new PortOccupancy(new ArrayList<>());
+
+        assertArrayEquals(new int[]{1, 2}, occupancy.getFree(null, 0, 10, 2));
+        assertArrayEquals(new int[0], occupancy.getFree(null, 0, 0, 1));
+    }
+}
@@ -0,0 +1,86 @@
+package com.portmanager.web.scanner;
+
+import com.portmanager.web.model.PortInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.portmanager.web.PortFixtures.list;
+import static com.portmanager.web.PortFixtures.listener;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 连接数和新建连接速率的统计
+ */
+class ConnectionTrackerTest {
+
+    private final ConnectionTracker tracker = new ConnectionTracker();
+
+    @Test
+    void countsInboundConnectionsPerListeningPort() {
+        List<PortInfo> listeners = listeners();
+        // 8080 上的 1 被两个进程共享，只计一次；51234 不是监听端口 (出站连接)
+        tracker.apply(tally(8080, 1, 8080, 2, 8080, 1, 5432, 3, 51234, 4), listeners, 1000, true);
+
+        assertEquals(2, (int) listeners.get(0).getEstablishedConnections());
+        assertEquals(2, (int) listeners.get(1).getEstablishedConnections());
+        assertEquals(1, (int) listeners.get(2).getEstablishedConnections());
+        // 首次扫描没有基准，速率为null；UDP 不统计
+        assertNull(listeners.get(0).getNewConnectionRate());
+        assertNull(listeners.get(2).getNewConnectionRate());
+        assertNull(listeners.get(3).getEstablishedConnections());
+    }
+
+    @Test
+    void comparesWithPreviousFullScan() {
+        tracker.apply(tally(8080, 1, 8080, 2, 5432, 3), listeners(), 1000, true);
+
+        // 2秒后: 8080 保留 2，新建 5、6；5432 的连接已关闭
+        List<PortInfo> second = listeners();
+        tracker.apply(tally(8080, 2, 8080, 5, 8080, 6), second, 3000, true);
+
+        assertEquals(3, (int) second.get(0).getEstablishedConnections());
+        assertEquals(Double.valueOf(1.0), second.get(0).getNewConnectionRate());
+        assertEquals(Double.valueOf(1.0), second.get(1).getNewConnectionRate());
+        assertEquals(0, (int) second.get(2).getEstablishedConnections());
+        assertEquals(Double.valueOf(0.0), second.get(2).getNewConnectionRate());
+    }
+
+    @Test
+    void singlePortProbeDoesNotMoveBaseline() {
+        tracker.apply(tally(8080, 1), listeners(), 1000, true);
+
+        List<PortInfo> probed = list(listener(8080).build());
+        tracker.apply(tally(8080, 1, 8080, 7), probed, 2000, false);
+        assertEquals(2, (int) probed.get(0).getEstablishedConnections());
+        assertEquals(Double.valueOf(1.0), probed.get(0).getNewConnectionRate());
+
+        // 仍与第一次全量扫描比较: 7 依旧算作新建
+        List<PortInfo> next = listeners();
+        tracker.apply(tally(8080, 1, 8080, 7), next, 5000, true);
+        assertEquals(Double.valueOf(0.25), next.get(0).getNewConnectionRate());
+    }
+
+    /**
+     * 8080 的 IPv4/IPv6 监听、5432 监听和 5353 UDP
+     */
+    private static List<PortInfo> listeners() {
+        return list(
+                listener(8080).build(),
+                listener(8080).localAddress("[::]:8080").build(),
+                listener(5432).build(),
+                listener(5353).protocol("UDP").build());
+    }
+
+    /**
+     * 按 (端口, 指纹) 成对给出的连接
+     */
+    private static ConnectionTally tally(long... portsAndFingerprints) {
+        ConnectionTally tally = new ConnectionTally();
+        for (int i = 0; i < portsAndFingerprints.length; i += 2) {
+            tally.add((int) portsAndFingerprints[i], portsAndFingerprints[i + 1]);
+        }
+        return tally;
+    }
+}
@@ -0,0 +1,146 @@
+package com.portmanager.web.scanner;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * /proc/net 套接字表的解析
+ * 地址为按主机字节序 (小端) 存储的32位字，端口为大端十六进制
+ */
+class LinuxPortScannerTest {
+
+    private static final String HEADER = "  sl  local_address rem_address   st tx_queue rx_queue tr tm->when retrnsmt"
+            + "   uid  timeout inode\n";
+    private static final String HEADER6 = "  sl  local_address                         remote_address"
+            + "                        st tx_queue rx_queue tr tm->when retrnsmt   uid  timeout inode\n";
+    private static final String TAIL = " 00000000:00000000 00:00000000 00000000";
+
+    @TempDir
+    Path dir;
+
+    private LinuxPortScanner scanner;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        scanner = new LinuxPortScanner();
+        ReflectionTestUtils.setField(scanner, "scanMetrics", new ScanMetrics(registry));
+    }
+
+    @Test
+    void formatsIpv4WordsInHostByteOrder() {
+        assertEquals("127.0.0.1", LinuxPortScanner.formatAddress("0100007F"));
+        assertEquals("192.168.1.20", LinuxPortScanner.formatAddress("1401A8C0"));
+        assertEquals("*", LinuxPortScanner.formatAddress("00000000"));
+    }
+
+    @Test
+    void formatsIpv6Addresses() {
+        assertEquals("[::]", LinuxPortScanner.formatAddress("00000000000000000000000000000000"));
+        assertEquals("[::1]", LinuxPortScanner.formatAddress("00000000000000000000000001000000"));
+        assertEquals("[fe80::1]", LinuxPortScanner.formatAddress("000080FE000000000000000001000000"));
+        assertEquals("[2001:db8::abcd:1]", LinuxPortScanner.formatAddress("B80D012000000000000000000100CDAB"));
+    }
+
+    @Test
+    void formatsIpv4MappedIpv6AsIpv4() {
+        assertEquals("127.0.0.1", LinuxPortScanner.formatAddress("0000000000000000FFFF00000100007F"));
+        assertEquals("10.0.0.5", LinuxPortScanner.formatAddress("0000000000000000FFFF00000500000A"));
+    }
+
+    @Test
+    void keepsListenersAndTalliesEstablishedConnections() throws IOException {
+        Path tcp = write("tcp", HEADER
+                + line(0, "0100007F:1F90", "00000000:0000", "0A", 1000, 123456)
+                + line(1, "00000000:1538", "00000000:0000", "0A", 999, 222222)
+                + line(2, "0100007F:1F90", "0100007F:C822", "01", 1000, 333333)
+                + line(3, "0100007F:1F90", "0100007F:C823", "06", 0, 0));
+        List<LinuxPortScanner.SocketEntry> sockets = new ArrayList<>();
+        ConnectionTally connections = new ConnectionTally();
+
+        scanner.readSocketTable(tcp, "TCP", "0A", sockets, connections);
+
+        assertEquals(2, sockets.size());
+        LinuxPortScanner.SocketEntry first = sockets.get(0);
+        assertEquals("TCP", first.protocol);
+        assertEquals("127.0.0.1", first.address);
+        assertEquals(8080, first.port);
+        assertEquals(1000, first.uid);
+        assertEquals(123456L, first.inode);
+        assertEquals("*", sockets.get(1).address);
+        assertEquals(5432, sockets.get(1).port);
+
+        // ESTABLISHED (01) 只记入连接，TIME_WAIT (06) 忽略
+        assertEquals(1, connections.size());
+        assertEquals(8080, ConnectionTally.port(connections.entries()[0]));
+    }
+
+    @Test
+    void readsTcp6Table() throws IOException {
+        Path tcp6 = write("tcp6", HEADER6
+                + line(0, "00000000000000000000000000000000:1F90", "00000000000000000000000000000000:0000", "0A", 0, 1)
+                + line(1, "00000000000000000000000001000000:20FB", "00000000000000000000000000000000:0000", "0A", 0, 2)
+                + line(2, "0000000000000000FFFF00000100007F:0BB8", "00000000000000000000000000000000:0000", "0A", 0, 3));
+        List<LinuxPortScanner.SocketEntry> sockets = new ArrayList<>();
+
+        scanner.readSocketTable(tcp6, "TCP", "0A", sockets, new ConnectionTally());
+
+        assertEquals(3, sockets.size());
+        assertEquals("[::]", sockets.get(0).address);
+        assertEquals("[::1]", sockets.get(1).address);
+        assertEquals(8443, sockets.get(1).port);
+        assertEquals("127.0.0.1", sockets.get(2).address);
+        assertEquals(3000, sockets.get(2).port);
+    }
+
+    @Test
+    void udpTableKeepsOnlyUnconnectedSockets() throws IOException {
+        Path udp = write("udp", HEADER
+                + line(0, "00000000:14E9", "00000000:0000", "07", 0, 10)
+                + line(1, "0100007F:A1B2", "0100007F:0035", "01", 0, 11));
+        List<LinuxPortScanner.SocketEntry> sockets = new ArrayList<>();
+
+        scanner.readSocketTable(udp, "UDP", "07", sockets, null);
+
+        assertEquals(1, sockets.size());
+        assertEquals("UDP", sockets.get(0).protocol);
+        assertEquals(5353, sockets.get(0).port);
+    }
+
+    @Test
+    void skipsShortAndMalformedLines() throws IOException {
+        Path tcp = write("tcp", HEADER
+                + "   0: 0100007F:1F90 00000000:0000 0A\n"
+                + "   1: 0100007F:1F91 00000000:0000 0A" + TAIL + "  abc 0 42 1\n"
+                + line(2, "0100007F:1F92", "00000000:0000", "0A", 1000, 43));
+        List<LinuxPortScanner.SocketEntry> sockets = new ArrayList<>();
+
+        scanner.readSocketTable(tcp, "TCP", "0A", sockets, null);
+
+        assertEquals(1, sockets.size());
+        assertEquals(8082, sockets.get(0).port);
+        assertEquals(1.0, registry.get("portmanager.scan.parse.failures").counter().count());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(dir.resolve(name), content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String line(int sl, String local, String remote, String state, int uid, long inode) {
+        return String.format("%4d: %s %s %s%s %5d %8d %d 1 0000000000000000 100 0 0 10 0%n",
+                sl, local, remote, state, TAIL, uid, 0, inode);
+    }
+}
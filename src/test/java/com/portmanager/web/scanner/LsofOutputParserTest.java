@@ -0,0 +1,145 @@
+package com.portmanager.web.scanner;
+
+import com.portmanager.web.model.PortInfo;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * lsof 输出的逐行解析
+ */
+class LsofOutputParserTest {
+
+    private static final String HEADER =
+            "COMMAND   PID  USER   FD   TYPE  DEVICE SIZE/OFF NODE NAME\n";
+
+    @Test
+    void parsesIpv4Listener() throws IOException {
+        List<PortInfo> ports = parse("java    12345 alice  123u IPv4 0x1234 0t0  TCP 127.0.0.1:8080 (LISTEN)\n");
+
+        assertEquals(1, ports.size());
+        PortInfo port = ports.get(0);
+        assertEquals(8080, (int) port.getPort());
+        assertEquals("TCP", port.getProtocol());
+        assertEquals("LISTENING", port.getStatus());
+        assertEquals(12345L, (long) port.getPid());
+        assertEquals("java", port.getProcessName());
+        assertEquals("alice", port.getUser());
+        assertEquals("127.0.0.1:8080", port.getLocalAddress());
+    }
+
+    @Test
+    void wildcardAddressKeepsIpv4AndIpv6Apart() throws IOException {
+        List<PortInfo> ports = parse(
+                "node    23456 bob    21u  IPv4 0x5678 0t0  TCP *:3000 (LISTEN)\n"
+                        + "node    23456 bob    22u  IPv6 0x5679 0t0  TCP *:3000 (LISTEN)\n"
+                        + "mDNS      456 alice   4u  IPv4 0x9abc 0t0  UDP *:5353\n");
+
+        assertEquals(3, ports.size());
+        assertEquals("*:3000", ports.get(0).getLocalAddress());
+        assertEquals("[::]:3000", ports.get(1).getLocalAddress());
+        assertEquals(5353, (int) ports.get(2).getPort());
+        assertEquals("UDP", ports.get(2).getProtocol());
+    }
+
+    @Test
+    void parsesBracketedIpv6Address() throws IOException {
+        List<PortInfo> ports = parse("nginx   34567 root    6u  IPv6 0xdef0 0t0  TCP [::1]:8443 (LISTEN)\n");
+
+        assertEquals(1, ports.size());
+        assertEquals(8443, (int) ports.get(0).getPort());
+        assertEquals("[::1]:8443", ports.get(0).getLocalAddress());
+    }
+
+    @Test
+    void establishedConnectionsAreTalliedNotListed() throws IOException {
+        ConnectionTally tally = new ConnectionTally();
+        List<PortInfo> ports = new ArrayList<>();
+        new LsofOutputParser(8192, tally).parse(stream(HEADER
+                + "java    12345 alice  123u IPv4 0x1234 0t0  TCP *:8080 (LISTEN)\n"
+                + "java    12345 alice  130u IPv4 0x1235 0t0  TCP 127.0.0.1:8080->127.0.0.1:51234 (ESTABLISHED)\n"
+                + "curl    22222 alice    5u IPv6 0x1236 0t0  TCP [::1]:51300->[::1]:8080 (ESTABLISHED)\n"), ports);
+
+        assertEquals(1, ports.size());
+        assertEquals(2, tally.size());
+        // 连接按本地端口记录，指纹为整个 本地->远程 字段
+        assertEquals(8080, ConnectionTally.port(tally.entries()[0]));
+        assertEquals((ConnectionTally.fingerprint("127.0.0.1:8080->127.0.0.1:51234") << 16) | 8080,
+                tally.entries()[0]);
+        assertEquals(51300, ConnectionTally.port(tally.entries()[1]));
+    }
+
+    @Test
+    void connectionLinesAreDroppedWithoutTally() throws IOException {
+        List<PortInfo> ports = parse("java    12345 alice  130u IPv4 0x1235 0t0  TCP 127.0.0.1:8080->127.0.0.1:51234 (ESTABLISHED)\n");
+
+        assertEquals(0, ports.size());
+    }
+
+    @Test
+    void skipsTruncatedAndMalformedLines() {
+        LsofOutputParser parser = new LsofOutputParser();
+
+        assertNull(parseLine(parser, "java    12345 alice  123u IPv4 0x1234 0t0  TCP"));
+        assertNull(parseLine(parser, "java    12345 alice  123u IPv4 0x1234 0t0  TCP 127.0.0.1"));
+        assertNull(parseLine(parser, "java    12345 alice  123u IPv4 0x1234 0t0  TCP *:"));
+        assertNull(parseLine(parser, "java    12345 alice  123u IPv4 0x1234 0t0  TCP *:70000 (LISTEN)"));
+        assertNull(parseLine(parser, "java    12a45 alice  123u IPv4 0x1234 0t0  TCP *:8080 (LISTEN)"));
+        assertNull(parseLine(parser, HEADER.trim()));
+    }
+
+    @Test
+    void parsesLastLineWithoutNewlineAndGrowsBuffer() throws IOException {
+        List<PortInfo> ports = new ArrayList<>();
+        // 缓冲区比一行还小，需扩容；最后一行没有换行符
+        int lines = new LsofOutputParser(16).parse(stream(HEADER
+                + "java    12345 alice  123u IPv4 0x1234 0t0  TCP *:8080 (LISTEN)\r\n"
+                + "redis     777 alice    6u IPv4 0x4321 0t0  TCP 127.0.0.1:6379 (LISTEN)"), ports);
+
+        assertEquals(3, lines);
+        assertEquals(2, ports.size());
+        assertEquals(8080, (int) ports.get(0).getPort());
+        assertEquals(6379, (int) ports.get(1).getPort());
+        assertEquals("redis", ports.get(1).getProcessName());
+    }
+
+    @Test
+    void reusesStringsOfAdjacentLinesFromSameProcess() throws IOException {
+        List<PortInfo> ports = parse(
+                "java    12345 alice  123u IPv4 0x1234 0t0  TCP *:8080 (LISTEN)\n"
+                        + "java    12345 alice  124u IPv6 0x1235 0t0  TCP *:8080 (LISTEN)\n"
+                        + "node    23456 alice   21u IPv4 0x5678 0t0  TCP *:3000 (LISTEN)\n"
+                        + "java    12345 alice  125u IPv4 0x1236 0t0  TCP *:9090 (LISTEN)\n");
+
+        assertSame(ports.get(0).getProcessName(), ports.get(1).getProcessName());
+        assertSame(ports.get(0).getUser(), ports.get(3).getUser());
+        assertEquals("node", ports.get(2).getProcessName());
+        // 只记住上一行，中间隔了其他进程后重新创建
+        assertEquals("java", ports.get(3).getProcessName());
+        assertNotSame(ports.get(0).getProcessName(), ports.get(3).getProcessName());
+    }
+
+    private static List<PortInfo> parse(String lines) throws IOException {
+        List<PortInfo> ports = new ArrayList<>();
+        new LsofOutputParser().parse(stream(HEADER + lines), ports);
+        return ports;
+    }
+
+    private static PortInfo parseLine(LsofOutputParser parser, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return parser.parseLine(bytes, 0, bytes.length);
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,168 @@
+package com.portmanager.web.service;
+
+import com.portmanager.web.model.PortInfo;
+import com.portmanager.web.model.PortSnapshot;
+import com.portmanager.web.model.SocketKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import static com.portmanager.web.PortFixtures.diff;
+import static com.portmanager.web.PortFixtures.list;
+import static com.portmanager.web.PortFixtures.listener;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 端口日志的追加与重放，包括进程崩溃留下的不完整尾部记录
+ */
+class PortJournalTest {
+
+    private static final int SEGMENT_HEADER = 8;
+    private static final int RECORD_HEADER = 8;
+
+    @TempDir
+    Path dir;
+
+    private final PortInfo web = listener(8080, 100L, "java");
+    private final PortInfo webRenamed = listener(8080, 100L, "gradle");
+    private final PortInfo db = listener(5432, 200L, "postgres");
+    private final PortInfo cache = listener(6379, 300L, "redis");
+
+    @Test
+    void restoresLatestStateByReplayingRecords() {
+        PortJournal journal = open();
+        assertNull(journal.restore());
+        appendHistory(journal);
+
+        // 未关闭 (没有检查点)，只能从分段记录重放
+        PortSnapshot restored = open().restore();
+
+        assertNotNull(restored);
+        assertEquals(3, restored.getVersion());
+        assertEquals(3000, restored.getScanTime());
+        assertEquals(2, restored.size());
+        assertEquals("gradle", restored.getSocket(SocketKey.of(web)).getProcessName());
+        assertNotNull(restored.getSocket(SocketKey.of(cache)));
+        assertNull(restored.getSocket(SocketKey.of(db)));
+    }
+
+    @Test
+    void replaysStateAtGivenTime() {
+        PortJournal journal = open();
+        journal.restore();
+        appendHistory(journal);
+
+        PortSnapshot atVersion2 = journal.getSnapshotAt(2500);
+
+        assertEquals(2, atVersion2.getVersion());
+        assertEquals(1, atVersion2.size());
+        assertEquals("gradle", atVersion2.getSocket(SocketKey.of(web)).getProcessName());
+        assertNull(journal.getSnapshotAt(500));
+    }
+
+    @Test
+    void discardsRecordWithCorruptPayloadAndContinuesFromPreviousVersion() throws IOException {
+        PortJournal journal = open();
+        journal.restore();
+        appendHistory(journal);
+
+        Path segment = onlySegment();
+        int[] offsets = recordOffsets(segment, 3);
+        // 内容写到一半: 长度已写入但内容与CRC不符
+        writeInt(segment, offsets[2] + RECORD_HEADER + 20, 0x7F7F7F7F);
+
+        assertTornTailDiscarded(segment, offsets[2]);
+    }
+
+    @Test
+    void discardsRecordWhoseLengthWasNeverWritten() throws IOException {
+        PortJournal journal = open();
+        journal.restore();
+        appendHistory(journal);
+
+        Path segment = onlySegment();
+        int[] offsets = recordOffsets(segment, 3);
+        // 长度最后写入，进程在写长度之前退出
+        writeInt(segment, offsets[2], 0);
+
+        assertTornTailDiscarded(segment, offsets[2]);
+    }
+
+    private void assertTornTailDiscarded(Path segment, int tornOffset) throws IOException {
+        PortJournal reopened = open();
+        PortSnapshot restored = reopened.restore();
+
+        assertEquals(2, restored.getVersion());
+        assertEquals(1, restored.size());
+        assertNull(restored.getSocket(SocketKey.of(cache)));
+        // 无效的尾部被截掉
+        assertEquals(tornOffset, Files.size(segment));
+
+        // 恢复后从版本2继续记录
+        reopened.append(diff(2, 3, list(db), list(), list()));
+        PortSnapshot continued = open().restore();
+
+        assertEquals(3, continued.getVersion());
+        assertEquals(2, continued.size());
+        assertNotNull(continued.getSocket(SocketKey.of(db)));
+    }
+
+    /**
+     * v1: 新增 web、db; v2: web 改名、db 消失; v3: 新增 cache
+     */
+    private void appendHistory(PortJournal journal) {
+        journal.append(diff(0, 1, list(web, db), list(), list()));
+        journal.append(diff(1, 2, list(), list(db), list(webRenamed)));
+        journal.append(diff(2, 3, list(cache), list(), list()));
+    }
+
+    private PortJournal open() {
+        PortJournal journal = new PortJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "directory", dir.toString());
+        ReflectionTestUtils.setField(journal, "segmentSize", 4096);
+        ReflectionTestUtils.setField(journal, "checkpointEvery", 1000);
+        ReflectionTestUtils.setField(journal, "retentionMs", 604800000L);
+        return journal;
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            Path[] segments = files.filter(file -> file.getFileName().toString().startsWith("segment-"))
+                    .toArray(Path[]::new);
+            assertEquals(1, segments.length);
+            return segments[0];
+        }
+    }
+
+    /**
+     * 按 [长度][CRC32][内容] 依次找到前 count 条记录的起始位置
+     */
+    private static int[] recordOffsets(Path segment, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int[] offsets = new int[count];
+        int position = SEGMENT_HEADER;
+        for (int i = 0; i < count; i++) {
+            offsets[i] = position;
+            position += RECORD_HEADER + buffer.getInt(position);
+        }
+        return offsets;
+    }
+
+    private static void writeInt(Path file, int position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.allocate(4).putInt(0, value);
+            channel.write(bytes, position);
+        }
+    }
+}
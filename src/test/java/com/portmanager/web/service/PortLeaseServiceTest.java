@@ -0,0 +1,106 @@
+package com.portmanager.web.service;
+
+import com.portmanager.web.model.PortLease;
+import com.portmanager.web.model.PortSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static com.portmanager.web.PortFixtures.diff;
+import static com.portmanager.web.PortFixtures.list;
+import static com.portmanager.web.PortFixtures.listener;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 空闲端口租约的分配、回绕和归还
+ * 快照中 10001 被占用，分配范围为 10000-10004
+ */
+class PortLeaseServiceTest {
+
+    private static final int FROM = 10000;
+    private static final int TO = 10004;
+
+    private PortLeaseService leaseService;
+
+    @BeforeEach
+    void setUp() {
+        PortSnapshot snapshot = new PortSnapshot(1, 1000, list(listener(10001, 100L, "java")));
+        PortScanService portScanService = new PortScanService() {
+            @Override
+            public PortSnapshot getSnapshot() {
+                return snapshot;
+            }
+        };
+
+        leaseService = new PortLeaseService();
+        ReflectionTestUtils.setField(leaseService, "portScanService", portScanService);
+        ReflectionTestUtils.setField(leaseService, "defaultTtl", 60000L);
+        ReflectionTestUtils.setField(leaseService, "maxTtl", 600000L);
+        ReflectionTestUtils.setField(leaseService, "maxPorts", 256);
+        ReflectionTestUtils.setField(leaseService, "maxLeasedPorts", 16384);
+    }
+
+    @Test
+    void allocatesFreePortsAfterPreviousAllocation() {
+        assertArrayEquals(new int[]{10000, 10002}, allocate(2).getPorts());
+        assertArrayEquals(new int[]{10003}, allocate(1).getPorts());
+        assertEquals(3, leaseService.getLeasedCount());
+    }
+
+    @Test
+    void wrapsAroundToStartOfRange() {
+        PortLease first = allocate(2);
+        leaseService.release(first.getLeaseId());
+
+        // 从上次分配之后继续，末尾不够时回到范围开头，结果保持升序
+        PortLease wrapped = allocate(3);
+        assertArrayEquals(new int[]{10000, 10003, 10004}, wrapped.getPorts());
+
+        // 回绕后从回绕部分之后继续，10001 被占用
+        assertArrayEquals(new int[]{10002}, allocate(1).getPorts());
+    }
+
+    @Test
+    void returnsNullWhenRangeIsExhausted() {
+        allocate(4);
+
+        assertNull(allocate(1));
+        assertEquals(4, leaseService.getLeasedCount());
+    }
+
+    @Test
+    void releasedPortsCanBeLeasedAgain() {
+        PortLease lease = allocate(4);
+
+        assertEquals("RELEASED", leaseService.release(lease.getLeaseId()).getStatus());
+        assertEquals(0, leaseService.getLeasedCount());
+        assertArrayEquals(new int[]{10000, 10002, 10003, 10004}, allocate(4).getPorts());
+    }
+
+    @Test
+    void listenerOnLeasedPortBindsLease() {
+        PortLease lease = allocate(2);
+
+        leaseService.onPortDiff(diff(1, 2, list(listener(10000, 100L, "java")), list(), list()));
+        assertEquals(1, leaseService.getLeasedCount());
+        assertArrayEquals(new int[]{10002}, lease.getActivePorts());
+
+        leaseService.onPortDiff(diff(2, 3, list(listener(10002, 100L, "java")), list(), list()));
+        assertEquals(0, leaseService.getLeasedCount());
+        assertEquals("BOUND", lease.getStatus());
+        assertNull(leaseService.getLease(lease.getLeaseId()));
+    }
+
+    @Test
+    void rejectsInvalidPortCount() {
+        assertThrows(IllegalArgumentException.class, () -> allocate(0));
+        assertThrows(IllegalArgumentException.class, () -> allocate(257));
+    }
+
+    private PortLease allocate(int count) {
+        return leaseService.allocate(FROM, TO, count, "TCP", 0, "test");
+    }
+}
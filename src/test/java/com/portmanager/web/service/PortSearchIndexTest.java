@@ -0,0 +1,134 @@
+package com.portmanager.web.service;
+
+import com.portmanager.web.model.PortInfo;
+import com.portmanager.web.model.SocketKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.portmanager.web.PortFixtures.diff;
+import static com.portmanager.web.PortFixtures.list;
+import static com.portmanager.web.PortFixtures.listener;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 端口搜索索引的查询与增量更新
+ */
+class PortSearchIndexTest {
+
+    private final PortInfo java = listener(8080).pid(100L).processName("java")
+            .commandLine("/usr/bin/java -jar Gateway-Service.jar").build();
+    private final PortInfo node = listener(3000).pid(200L).processName("node")
+            .commandLine("node /srv/app/server.js").build();
+    private final PortInfo redis = listener(6379).pid(300L).processName("redis-server").build();
+
+    private PortSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PortSearchIndex();
+        index.rebuild(list(java, node, redis));
+    }
+
+    @Test
+    void matchesSubstringsOfEachField() {
+        assertEquals(keys(java), search("808"));
+        assertEquals(keys(node), search("200"));
+        assertEquals(keys(redis), search("REDIS"));
+        // 超过3个字符的查询在候选文本上校验
+        assertEquals(keys(java), search("gateway-serv"));
+        assertEquals(keys(node), search("server.js"));
+        assertEquals(keys(java, node, redis), search("0"));
+        assertTrue(search("gateway-client").isEmpty());
+    }
+
+    @Test
+    void doesNotMatchAcrossFields() {
+        // 进程名 "java" 与命令行首部 "/usr" 不拼接
+        assertTrue(search("java/usr").isEmpty());
+        assertTrue(search("8080100").isEmpty());
+    }
+
+    @Test
+    void appliesAddedRemovedAndChanged() {
+        PortInfo nodeRenamed = listener(3000).pid(200L).processName("deno")
+                .commandLine("deno run server.ts").build();
+        PortInfo nginx = listener(80).pid(400L).processName("nginx").build();
+
+        index.apply(diff(1, 2, list(nginx), list(redis), list(nodeRenamed)));
+
+        assertEquals(3, index.size());
+        assertTrue(search("redis").isEmpty());
+        assertTrue(search("server.js").isEmpty());
+        assertEquals(keys(nodeRenamed), search("server.ts"));
+        assertEquals(keys(nginx), search("nginx"));
+        assertEquals(keys(java), search("java"));
+
+        // 删除后重新出现的文本可以再次命中
+        index.apply(diff(2, 3, list(redis), list(), list()));
+        assertEquals(keys(redis), search("redis"));
+    }
+
+    @Test
+    void sharesTextBetweenPortAndPidFields() {
+        PortInfo sameNumber = listener(4242, 4242L, "svc");
+        PortInfo otherPort = listener(5000, 4242L, "svc");
+        index.apply(diff(1, 2, list(sameNumber, otherPort), list(), list()));
+
+        assertEquals(keys(sameNumber, otherPort), search("4242"));
+
+        // 同一文本被两个字段引用，删除时两次引用都要释放
+        index.apply(diff(2, 3, list(), list(sameNumber), list()));
+        assertEquals(keys(otherPort), search("4242"));
+
+        index.apply(diff(3, 4, list(), list(otherPort), list()));
+        assertTrue(search("4242").isEmpty());
+        assertTrue(search("svc").isEmpty());
+    }
+
+    @Test
+    void searchesCorrectlyAfterCompaction() {
+        List<PortInfo> workers = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            workers.add(listener(20000 + i).pid(10000L + i).processName("worker")
+                    .commandLine("worker --shard=shard-" + i).build());
+        }
+        index.apply(diff(1, 2, workers, list(), list()));
+        assertEquals(1203, index.size());
+
+        // 死文本超过阈值且多于活文本，触发压缩并重新编号
+        List<PortInfo> removed = new ArrayList<>(workers.subList(0, 1199));
+        index.apply(diff(2, 3, list(), removed, list()));
+        PortInfo survivor = workers.get(1199);
+
+        assertEquals(4, index.size());
+        assertEquals(keys(survivor), search("worker"));
+        assertEquals(keys(survivor), search("shard-1199"));
+        assertTrue(search("shard-42").isEmpty());
+        assertEquals(keys(java), search("gateway"));
+        assertEquals(keys(node), search("3000"));
+
+        // 压缩后新增的文本和复用的文本都能命中
+        PortInfo returning = workers.get(42);
+        index.apply(diff(3, 4, list(returning), list(), list()));
+        assertEquals(keys(returning), search("shard-42"));
+        assertEquals(keys(returning, survivor), search("worker"));
+    }
+
+    private Set<SocketKey> search(String keyword) {
+        return new HashSet<>(index.search(keyword));
+    }
+
+    private static Set<SocketKey> keys(PortInfo... ports) {
+        Set<SocketKey> keys = new HashSet<>();
+        for (PortInfo port : ports) {
+            keys.add(SocketKey.of(port));
+        }
+        return keys;
+    }
+}